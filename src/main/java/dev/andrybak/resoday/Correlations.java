@@ -0,0 +1,131 @@
+package dev.andrybak.resoday;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * How often habits happen on the same days in a range of dates: number of co-occurrences of every pair of habits, and
+ * coefficients derived from them.
+ * <p>
+ * Co-occurrences are counted by intersecting the bitmaps of years of {@link DateSet}s word by word, and counting bits
+ * of the intersections with {@link Long#bitCount(long)}, without going over individual dates.
+ */
+public final class Correlations {
+	private final int habitCount;
+	private final long days;
+	/**
+	 * Co-occurrences of habits {@code i} and {@code j} at {@code i * habitCount + j}. Diagonal has the numbers of dates
+	 * of each habit.
+	 */
+	private final int[] coOccurrences;
+
+	private Correlations(int habitCount, long days, int[] coOccurrences) {
+		this.habitCount = habitCount;
+		this.days = days;
+		this.coOccurrences = coOccurrences;
+	}
+
+	/**
+	 * @param habits dates of each habit
+	 * @param from start of the range, inclusive
+	 * @param to end of the range, inclusive
+	 */
+	public static Correlations compute(List<DateSet> habits, LocalDate from, LocalDate to) {
+		int n = habits.size();
+		int[] counts = new int[n * n];
+		long days = from.isAfter(to) ? 0 : ChronoUnit.DAYS.between(from, to) + 1;
+		long[][] masked = new long[n][DateSet.WORDS_PER_YEAR];
+		boolean[] present = new boolean[n];
+		for (int year = from.getYear(); year <= to.getYear() && days > 0; year++) {
+			long[] mask = rangeMask(year, from, to);
+			for (int i = 0; i < n; i++) {
+				long[] bitmap = habits.get(i).bitmapOf(year);
+				present[i] = bitmap != null;
+				if (bitmap != null) {
+					for (int w = 0; w < DateSet.WORDS_PER_YEAR; w++) {
+						masked[i][w] = bitmap[w] & mask[w];
+					}
+				}
+			}
+			for (int i = 0; i < n; i++) {
+				if (!present[i]) {
+					continue;
+				}
+				for (int j = i; j < n; j++) {
+					if (!present[j]) {
+						continue;
+					}
+					int c = 0;
+					for (int w = 0; w < DateSet.WORDS_PER_YEAR; w++) {
+						c += Long.bitCount(masked[i][w] & masked[j][w]);
+					}
+					counts[i * n + j] += c;
+				}
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < i; j++) {
+				counts[i * n + j] = counts[j * n + i];
+			}
+		}
+		return new Correlations(n, days, counts);
+	}
+
+	/**
+	 * @return bits of days of the given year, which are in the range
+	 */
+	private static long[] rangeMask(int year, LocalDate from, LocalDate to) {
+		int firstBit = from.getYear() < year ? 0 : from.getDayOfYear() - 1;
+		int lastBit = to.getYear() > year ? LocalDate.ofYearDay(year, 1).lengthOfYear() - 1 : to.getDayOfYear() - 1;
+		long[] mask = new long[DateSet.WORDS_PER_YEAR];
+		for (int w = 0; w < mask.length; w++) {
+			int wordFirstBit = w * Long.SIZE;
+			int lo = Math.max(firstBit, wordFirstBit) - wordFirstBit;
+			int hi = Math.min(lastBit, wordFirstBit + Long.SIZE - 1) - wordFirstBit;
+			if (lo <= hi) {
+				mask[w] = (-1L >>> (Long.SIZE - 1 - hi)) & (-1L << lo);
+			}
+		}
+		return mask;
+	}
+
+	public int getHabitCount() {
+		return habitCount;
+	}
+
+	/**
+	 * @return number of days, on which both habits happened. For {@code i == j}, number of days of the habit.
+	 */
+	public int getCoOccurrences(int i, int j) {
+		return coOccurrences[i * habitCount + j];
+	}
+
+	/**
+	 * @return phi coefficient of the two habits from {@code -1} to {@code 1}, or {@link Double#NaN}, if one of the
+	 * habits happened on all or none of the days
+	 */
+	public double getPhi(int i, int j) {
+		double both = getCoOccurrences(i, j);
+		double a = getCoOccurrences(i, i);
+		double b = getCoOccurrences(j, j);
+		double denominator = Math.sqrt(a * b * (days - a) * (days - b));
+		if (denominator == 0) {
+			return Double.NaN;
+		}
+		return (days * both - a * b) / denominator;
+	}
+
+	/**
+	 * @return Jaccard index of the two habits from {@code 0} to {@code 1}, or {@link Double#NaN}, if neither habit
+	 * happened
+	 */
+	public double getJaccard(int i, int j) {
+		int both = getCoOccurrences(i, j);
+		int either = getCoOccurrences(i, i) + getCoOccurrences(j, j) - both;
+		if (either == 0) {
+			return Double.NaN;
+		}
+		return (double)both / either;
+	}
+}
@@ -0,0 +1,208 @@
+package dev.andrybak.resoday;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * A set of {@link LocalDate}s, which stores each year as a bitmap of its days.
+ * <p>
+ * Each year, which has at least one date in the set, takes up {@value #WORDS_PER_YEAR} {@code long}s, one bit per
+ * day of the year. Years are kept sorted, which allows finding the bitmap of a year using a binary search without
+ * boxing.
+ */
+public final class DateSet {
+	/**
+	 * 6 * 64 = 384 bits, enough for 366 days of a leap year.
+	 */
+	static final int WORDS_PER_YEAR = 6;
+	private static final int INITIAL_CAPACITY = 4;
+
+	/**
+	 * Sorted years, which have at least one date in this set. Only the first {@link #yearCount} elements are used.
+	 */
+	private int[] years = new int[INITIAL_CAPACITY];
+	/**
+	 * Bitmaps of days for the corresponding elements of {@link #years}. Bit {@code i} corresponds to the day of year
+	 * {@code i + 1}.
+	 */
+	private long[][] bitmaps = new long[INITIAL_CAPACITY][];
+	private int yearCount = 0;
+	private int size = 0;
+
+	public DateSet() {
+	}
+
+	public DateSet(Collection<LocalDate> dates) {
+		dates.forEach(this::add);
+	}
+
+	/**
+	 * Creates an independent copy of the given set.
+	 */
+	public DateSet(DateSet other) {
+		years = Arrays.copyOf(other.years, Math.max(INITIAL_CAPACITY, other.yearCount));
+		bitmaps = new long[years.length][];
+		for (int i = 0; i < other.yearCount; i++) {
+			bitmaps[i] = other.bitmaps[i].clone();
+		}
+		yearCount = other.yearCount;
+		size = other.size;
+	}
+
+	private static int bitIndex(LocalDate d) {
+		return d.getDayOfYear() - 1;
+	}
+
+	private int findYear(int year) {
+		return Arrays.binarySearch(years, 0, yearCount, year);
+	}
+
+	/**
+	 * @return {@code true} if this set did not already contain the given date
+	 */
+	public boolean add(LocalDate d) {
+		int year = d.getYear();
+		int i = findYear(year);
+		if (i < 0) {
+			i = insertYear(-(i + 1), year);
+		}
+		long[] bitmap = bitmaps[i];
+		int bit = bitIndex(d);
+		long mask = 1L << bit;
+		if ((bitmap[bit >>> 6] & mask) != 0) {
+			return false;
+		}
+		bitmap[bit >>> 6] |= mask;
+		size++;
+		return true;
+	}
+
+	/**
+	 * @return {@code true} if this set contained the given date
+	 */
+	public boolean remove(LocalDate d) {
+		int i = findYear(d.getYear());
+		if (i < 0) {
+			return false;
+		}
+		long[] bitmap = bitmaps[i];
+		int bit = bitIndex(d);
+		long mask = 1L << bit;
+		if ((bitmap[bit >>> 6] & mask) == 0) {
+			return false;
+		}
+		bitmap[bit >>> 6] &= ~mask;
+		size--;
+		if (isEmpty(bitmap)) {
+			removeYear(i);
+		}
+		return true;
+	}
+
+	public boolean contains(LocalDate d) {
+		int i = findYear(d.getYear());
+		if (i < 0) {
+			return false;
+		}
+		int bit = bitIndex(d);
+		return (bitmaps[i][bit >>> 6] & (1L << bit)) != 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return distinct years, which have at least one date in this set, in ascending order
+	 */
+	public IntStream years() {
+		return Arrays.stream(years, 0, yearCount);
+	}
+
+	/**
+	 * @return a copy of the bitmap of the given year: bit {@code i} is set, if the day of year {@code i + 1} is in
+	 * this set
+	 */
+	public BitSet daysOfYear(int year) {
+		int i = findYear(year);
+		if (i < 0) {
+			return new BitSet();
+		}
+		return BitSet.valueOf(bitmaps[i]);
+	}
+
+	/**
+	 * @return the bitmap of the given year itself, which must not be modified, or {@code null}, if there are no dates
+	 * in the year
+	 */
+	long[] bitmapOf(int year) {
+		int i = findYear(year);
+		return i < 0 ? null : bitmaps[i];
+	}
+
+	/**
+	 * Performs the given action for each date in this set in chronological order.
+	 */
+	public void forEach(Consumer<LocalDate> action) {
+		for (int i = 0; i < yearCount; i++) {
+			int year = years[i];
+			long[] bitmap = bitmaps[i];
+			for (int w = 0; w < WORDS_PER_YEAR; w++) {
+				long word = bitmap[w];
+				while (word != 0) {
+					int bit = Long.numberOfTrailingZeros(word);
+					action.accept(LocalDate.ofYearDay(year, w * 64 + bit + 1));
+					word &= word - 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return all dates of this set in chronological order
+	 */
+	public List<LocalDate> toList() {
+		List<LocalDate> result = new ArrayList<>(size);
+		forEach(result::add);
+		return result;
+	}
+
+	private int insertYear(int index, int year) {
+		if (yearCount == years.length) {
+			years = Arrays.copyOf(years, yearCount * 2);
+			bitmaps = Arrays.copyOf(bitmaps, yearCount * 2);
+		}
+		System.arraycopy(years, index, years, index + 1, yearCount - index);
+		System.arraycopy(bitmaps, index, bitmaps, index + 1, yearCount - index);
+		years[index] = year;
+		bitmaps[index] = new long[WORDS_PER_YEAR];
+		yearCount++;
+		return index;
+	}
+
+	private void removeYear(int index) {
+		System.arraycopy(years, index + 1, years, index, yearCount - index - 1);
+		System.arraycopy(bitmaps, index + 1, bitmaps, index, yearCount - index - 1);
+		yearCount--;
+		bitmaps[yearCount] = null;
+	}
+
+	private static boolean isEmpty(long[] bitmap) {
+		for (long word : bitmap) {
+			if (word != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,126 @@
+package dev.andrybak.resoday;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Sorted set of days, represented as {@linkplain java.time.LocalDate#toEpochDay() epoch days}, which is backed by a
+ * primitive array. Supports range queries, which don't allocate.
+ */
+final class EpochDayIndex {
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Sorted epoch days. Only the first {@link #size} elements are used.
+	 */
+	private int[] days;
+	private int size;
+
+	EpochDayIndex() {
+		days = new int[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	/**
+	 * @param dates source of the dates for the new index
+	 */
+	EpochDayIndex(DateSet dates) {
+		days = new int[Math.max(INITIAL_CAPACITY, dates.size())];
+		size = 0;
+		// DateSet iterates in chronological order, so the array is sorted without an explicit sort
+		dates.forEach(d -> days[size++] = Math.toIntExact(d.toEpochDay()));
+	}
+
+	/**
+	 * @return index of the first element, which is greater than or equal to {@code day}
+	 */
+	private int lowerBound(int day) {
+		int i = Arrays.binarySearch(days, 0, size, day);
+		return i >= 0 ? i : -(i + 1);
+	}
+
+	/**
+	 * @return index of the first element, which is greater than {@code day}
+	 */
+	private int upperBound(int day) {
+		int i = Arrays.binarySearch(days, 0, size, day);
+		return i >= 0 ? i + 1 : -(i + 1);
+	}
+
+	/**
+	 * @return {@code true} if this index did not already contain the given day
+	 */
+	boolean add(int day) {
+		int i = Arrays.binarySearch(days, 0, size, day);
+		if (i >= 0) {
+			return false;
+		}
+		i = -(i + 1);
+		if (size == days.length) {
+			days = Arrays.copyOf(days, size * 2);
+		}
+		System.arraycopy(days, i, days, i + 1, size - i);
+		days[i] = day;
+		size++;
+		return true;
+	}
+
+	/**
+	 * @return {@code true} if this index contained the given day
+	 */
+	boolean remove(int day) {
+		int i = Arrays.binarySearch(days, 0, size, day);
+		if (i < 0) {
+			return false;
+		}
+		System.arraycopy(days, i + 1, days, i, size - i - 1);
+		size--;
+		return true;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int first() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return days[0];
+	}
+
+	int last() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return days[size - 1];
+	}
+
+	/**
+	 * @return number of days in the range from {@code from} to {@code to}, both inclusive
+	 */
+	int countBetween(int from, int to) {
+		if (from > to) {
+			return 0;
+		}
+		return upperBound(to) - lowerBound(from);
+	}
+
+	/**
+	 * Performs the given action for each day in the range from {@code from} to {@code to}, both inclusive, in
+	 * ascending order.
+	 */
+	void forEachBetween(int from, int to, IntConsumer action) {
+		if (from > to) {
+			return;
+		}
+		for (int i = lowerBound(from); i < size && days[i] <= to; i++) {
+			action.accept(days[i]);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package dev.andrybak.resoday;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Basic statistics of a {@link YearHistory}, which are kept up-to-date on each change of the history, see
+ * {@link YearHistory#getStatistics()}. Statistics of a history, which hasn't been read from disk yet, come from the
+ * {@linkplain dev.andrybak.resoday.storage.HabitManifest manifest}, so they are available without reading the history.
+ */
+public final class HabitStatistics implements YearHistoryListener {
+	private final YearHistory history;
+	private Summary summary;
+
+	HabitStatistics(YearHistory history, Summary summary) {
+		this.history = history;
+		this.summary = summary;
+	}
+
+	public Summary getSummary() {
+		return summary;
+	}
+
+	void reset(Summary summary) {
+		this.summary = summary;
+	}
+
+	@Override
+	public void onTurnOn(LocalDate d) {
+		LocalDate first = summary.first() == null || d.isBefore(summary.first()) ? d : summary.first();
+		LocalDate last = summary.last() == null || d.isAfter(summary.last()) ? d : summary.last();
+		summary = new Summary(summary.count() + 1, first, last);
+	}
+
+	@Override
+	public void onTurnOff(LocalDate d) {
+		// the history already has the new state, and has an index for its boundaries
+		LocalDate first = d.equals(summary.first()) ? history.first().orElse(null) : summary.first();
+		LocalDate last = d.equals(summary.last()) ? history.last().orElse(null) : summary.last();
+		summary = new Summary(summary.count() - 1, first, last);
+	}
+
+	/**
+	 * Immutable statistics, which can be passed between threads.
+	 *
+	 * @param count number of dates, which are turned on
+	 * @param first the earliest date, which is turned on, or {@code null}, if there are no such dates
+	 * @param last the latest date, which is turned on, or {@code null}, if there are no such dates
+	 */
+	public record Summary(int count, LocalDate first, LocalDate last) {
+		public static final Summary EMPTY = new Summary(0, null, null);
+
+		public Optional<LocalDate> getFirst() {
+			return Optional.ofNullable(first);
+		}
+
+		public Optional<LocalDate> getLast() {
+			return Optional.ofNullable(last);
+		}
+	}
+}
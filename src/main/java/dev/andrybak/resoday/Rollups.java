@@ -0,0 +1,67 @@
+package dev.andrybak.resoday;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Numbers of turned on dates by month, by day of week, and by year. Counters of a {@link YearHistory} are built
+ * once, when its dates are read, and then are updated by the history on each change in constant time, see
+ * {@link YearHistory#snapshotRollups(java.util.function.Supplier)}.
+ */
+public final class Rollups {
+	private final int[] byMonth = new int[Month.values().length];
+	private final int[] byDayOfWeek = new int[DayOfWeek.values().length];
+	/**
+	 * Year to number of dates in it. Only years with at least one date are present. There are few years, so updates
+	 * are cheap.
+	 */
+	private final NavigableMap<Integer, Integer> byYear = new TreeMap<>();
+
+	/**
+	 * Counts the given dates. Can be called from any thread.
+	 */
+	public Rollups(DateSet dates) {
+		dates.forEach(this::add);
+	}
+
+	private Rollups(Rollups other) {
+		System.arraycopy(other.byMonth, 0, byMonth, 0, byMonth.length);
+		System.arraycopy(other.byDayOfWeek, 0, byDayOfWeek, 0, byDayOfWeek.length);
+		byYear.putAll(other.byYear);
+	}
+
+	Rollups copy() {
+		return new Rollups(this);
+	}
+
+	void add(LocalDate d) {
+		byMonth[d.getMonthValue() - 1]++;
+		byDayOfWeek[d.getDayOfWeek().getValue() - 1]++;
+		byYear.merge(d.getYear(), 1, Integer::sum);
+	}
+
+	void remove(LocalDate d) {
+		byMonth[d.getMonthValue() - 1]--;
+		byDayOfWeek[d.getDayOfWeek().getValue() - 1]--;
+		byYear.computeIfPresent(d.getYear(), (ignored, count) -> count == 1 ? null : count - 1);
+	}
+
+	public int getCount(Month month) {
+		return byMonth[month.getValue() - 1];
+	}
+
+	public int getCount(DayOfWeek dayOfWeek) {
+		return byDayOfWeek[dayOfWeek.getValue() - 1];
+	}
+
+	/**
+	 * @return unmodifiable view of numbers of dates by year, in chronological order
+	 */
+	public NavigableMap<Integer, Integer> getCountsByYear() {
+		return Collections.unmodifiableNavigableMap(byYear);
+	}
+}
@@ -0,0 +1,167 @@
+package dev.andrybak.resoday;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Runs of consecutive turned on dates of a {@link YearHistory}, see {@link YearHistory#getStreaks()}.
+ * <p>
+ * Runs are kept in a sorted map from the first day of a run to its last day, and lengths of all runs are kept in a
+ * sorted multiset. Turning a date on or off merges or splits at most two runs, which takes {@code O(log n)}.
+ */
+public final class Streaks implements YearHistoryListener {
+	/**
+	 * Runs by {@linkplain LocalDate#toEpochDay() epoch day}: first day of a run to last day of a run.
+	 */
+	private final NavigableMap<Long, Long> runs = new TreeMap<>();
+	/**
+	 * Multiset of lengths of {@link #runs}: length to number of runs of this length.
+	 */
+	private final NavigableMap<Long, Integer> lengths = new TreeMap<>();
+
+	/**
+	 * @param index days to build the runs from
+	 */
+	Streaks(EpochDayIndex index) {
+		long[] run = new long[2]; // first and last day of the run being built
+		boolean[] inRun = new boolean[1];
+		index.forEachBetween(Integer.MIN_VALUE, Integer.MAX_VALUE, day -> {
+			if (inRun[0] && day == run[1] + 1) {
+				run[1] = day;
+				return;
+			}
+			if (inRun[0]) {
+				addRun(run[0], run[1]);
+			}
+			run[0] = day;
+			run[1] = day;
+			inRun[0] = true;
+		});
+		if (inRun[0]) {
+			addRun(run[0], run[1]);
+		}
+	}
+
+	/**
+	 * Computes streaks of the given dates, which don't follow any history. Can be called from any thread.
+	 */
+	public static Streaks of(DateSet dates) {
+		return new Streaks(new EpochDayIndex(dates));
+	}
+
+	private void addRun(long first, long last) {
+		runs.put(first, last);
+		lengths.merge(last - first + 1, 1, Integer::sum);
+	}
+
+	private void removeRun(long first, long last) {
+		runs.remove(first);
+		long length = last - first + 1;
+		lengths.computeIfPresent(length, (ignored, count) -> count == 1 ? null : count - 1);
+	}
+
+	/**
+	 * @return the run, which contains the given day, or {@code null}
+	 */
+	private Map.Entry<Long, Long> runOf(long day) {
+		Map.Entry<Long, Long> e = runs.floorEntry(day);
+		if (e == null || e.getValue() < day) {
+			return null;
+		}
+		return e;
+	}
+
+	void add(long day) {
+		if (runOf(day) != null) {
+			return;
+		}
+		long first = day;
+		long last = day;
+		Map.Entry<Long, Long> before = runOf(day - 1);
+		if (before != null) {
+			first = before.getKey();
+			removeRun(before.getKey(), before.getValue());
+		}
+		Long afterLast = runs.get(day + 1);
+		if (afterLast != null) {
+			last = afterLast;
+			removeRun(day + 1, afterLast);
+		}
+		addRun(first, last);
+	}
+
+	void remove(long day) {
+		Map.Entry<Long, Long> run = runOf(day);
+		if (run == null) {
+			return;
+		}
+		long first = run.getKey();
+		long last = run.getValue();
+		removeRun(first, last);
+		if (first < day) {
+			addRun(first, day - 1);
+		}
+		if (day < last) {
+			addRun(day + 1, last);
+		}
+	}
+
+	@Override
+	public void onTurnOn(LocalDate d) {
+		add(d.toEpochDay());
+	}
+
+	@Override
+	public void onTurnOff(LocalDate d) {
+		remove(d.toEpochDay());
+	}
+
+	/**
+	 * @return length of the longest run, or zero, if there are no runs
+	 */
+	public int getLongest() {
+		return lengths.isEmpty() ? 0 : Math.toIntExact(lengths.lastKey());
+	}
+
+	/**
+	 * A streak is current, if it includes today or yesterday: the user may not have marked today yet.
+	 *
+	 * @return length of the current streak, or zero, if there is no current streak
+	 */
+	public int getCurrent(LocalDate today) {
+		long day = today.toEpochDay();
+		Map.Entry<Long, Long> run = runOf(day);
+		if (run == null) {
+			run = runOf(day - 1);
+		}
+		if (run == null) {
+			return 0;
+		}
+		return Math.toIntExact(run.getValue() - run.getKey() + 1);
+	}
+
+	/**
+	 * @return all runs in chronological order
+	 */
+	public List<Run> getRuns() {
+		List<Run> result = new ArrayList<>(runs.size());
+		runs.forEach((first, last) -> result.add(new Run(LocalDate.ofEpochDay(first), LocalDate.ofEpochDay(last))));
+		return result;
+	}
+
+	/**
+	 * Consecutive turned on dates.
+	 *
+	 * @param first the first date of the run, inclusive
+	 * @param last the last date of the run, inclusive
+	 */
+	public record Run(LocalDate first, LocalDate last) {
+		public int length() {
+			return Math.toIntExact(last.toEpochDay() - first.toEpochDay() + 1);
+		}
+	}
+}
@@ -4,21 +4,25 @@ import com.google.gson.JsonParseException;
 import dev.andrybak.resoday.gui.settings.DataDirSupplier;
 import dev.andrybak.resoday.settings.gui.HabitCalendarLayout;
 import dev.andrybak.resoday.storage.HabitFiles;
+import dev.andrybak.resoday.storage.HabitManifest;
 import dev.andrybak.resoday.storage.SerializableYearHistory;
 import dev.andrybak.resoday.storage.SerializableYearHistoryV1;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.NavigableSet;
@@ -26,6 +30,8 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -37,8 +43,32 @@ import static java.util.stream.Collectors.toList;
  */
 public final class YearHistory {
 	private static final DateTimeFormatter CALENDAR_DAY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-	private final Set<LocalDate> dates;
+	private DateSet dates;
+	/**
+	 * Sorted index of {@link #dates} for range queries. Kept in sync with {@code dates}.
+	 */
+	private EpochDayIndex index;
+	/**
+	 * Counters of {@link #dates}. Kept in sync with {@code dates}.
+	 */
+	private Rollups rollups;
+	/**
+	 * Reads dates of this history, if they haven't been read yet, see {@link #fromManifest}. {@code null} after the
+	 * dates have been read. Throws {@link UncheckedIOException} or {@link JsonParseException}, if the habit file
+	 * can't be read.
+	 */
+	private Supplier<Collection<LocalDate>> pendingDates;
+	/**
+	 * Whether reading of {@link #pendingDates} has failed. Such history is never saved, so that the habit file is left
+	 * untouched.
+	 */
+	private boolean unreadable = false;
 	private final List<YearHistoryListener> listeners = new ArrayList<>();
+	private final HabitStatistics statistics;
+	/**
+	 * {@code null} until requested for the first time, see {@link #getStreaks()}.
+	 */
+	private Streaks streaks;
 	private final String id;
 	/**
 	 * Gives the parent directory for where to store the habit file.
@@ -61,11 +91,16 @@ public final class YearHistory {
 	 */
 	private HabitCalendarLayout habitCalendarLayout;
 	/**
-	 * Whether this {@code YearHistory} has any changes since last {@linkplain #save saving}.
+	 * Number of changes of this {@code YearHistory}. Compared with {@link #savedChangeCount} to find out whether this
+	 * {@code YearHistory} has any changes since last saving of a {@linkplain #snapshot() snapshot}.
 	 *
-	 * @implSpec All methods which modify {@link #dates} must set this flag to true.
+	 * @implSpec All methods which modify {@link #dates} must increment this counter.
+	 */
+	private long changeCount = 1;
+	/**
+	 * Value of {@link #changeCount} at the moment of taking the latest snapshot, which was successfully saved.
 	 */
-	private boolean hasChanges = true;
+	private long savedChangeCount = 0;
 
 	public YearHistory(DataDirSupplier dataDirSupplier, Path relativeStatePath, String name, String id) {
 		this(dataDirSupplier, relativeStatePath, emptySet(), name, id, Visibility.VISIBLE,
@@ -77,11 +112,15 @@ public final class YearHistory {
 	{
 		this.dataDirSupplier = dataDirSupplier;
 		this.relativeStatePath = relativeStatePath;
-		this.dates = new HashSet<>(dates);
+		this.dates = new DateSet(dates);
+		this.index = new EpochDayIndex(this.dates);
+		this.rollups = new Rollups(this.dates);
 		this.name = name;
 		this.id = id;
 		this.visibility = visibility;
 		this.habitCalendarLayout = habitCalendarLayout;
+		this.statistics = new HabitStatistics(this, summarize());
+		listeners.add(statistics);
 	}
 
 	private YearHistory(DataDirSupplier dataDirSupplier, Path relativeStatePath,
@@ -93,11 +132,12 @@ public final class YearHistory {
 	}
 
 	/**
-	 * Read a habit file of any text-based version. Currently:
+	 * Read a habit file of any version. Currently:
 	 * <ul>
 	 *     <li>version 0: plain text {@link #readV0(DataDirSupplier, Path)}</li>
 	 *     <li>version 1: JSON see {@link SerializableYearHistoryV1}</li>
 	 *     <li>version 2: JSON see {@link SerializableYearHistory}</li>
+	 *     <li>version 3: binary see {@link SerializableYearHistory#writeTo}</li>
 	 * </ul>
 	 */
 	public static Optional<YearHistory> read(DataDirSupplier dataDirSupplier, Path statePath) {
@@ -113,9 +153,9 @@ public final class YearHistory {
 		}
 		YearHistory tmp;
 		final boolean isV0V1HiddenFile = HabitFiles.isV0V1HiddenFile(statePath);
-		try (BufferedReader r = Files.newBufferedReader(statePath)) {
+		try {
 			String name = HabitFiles.pathToName(statePath);
-			SerializableYearHistory serializableYearHistory = SerializableYearHistory.fromJson(r, name, statePath);
+			SerializableYearHistory serializableYearHistory = SerializableYearHistory.read(statePath, name);
 			tmp = new YearHistory(dataDirSupplier, relativeStatePath, serializableYearHistory);
 		} catch (IOException e) {
 			System.err.println("Could not read '" + statePath.toAbsolutePath() + "': " + e);
@@ -130,6 +170,28 @@ public final class YearHistory {
 		return Optional.of(tmp);
 	}
 
+	/**
+	 * Creates a history from an up-to-date entry of {@link HabitManifest}. The habit file itself is read only when
+	 * the dates are needed for the first time.
+	 *
+	 * @param statePath path to the habit file described by {@code entry}
+	 */
+	public static YearHistory fromManifest(DataDirSupplier dataDirSupplier, Path statePath, HabitManifest.Entry entry) {
+		YearHistory tmp = new YearHistory(dataDirSupplier, dataDirSupplier.getDataDir().relativize(statePath),
+			emptySet(), entry.name(), entry.id(), entry.visibility(), entry.habitCalendarLayout());
+		tmp.pendingDates = () -> {
+			try {
+				return SerializableYearHistory.read(statePath, entry.name()).getDates();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+		tmp.statistics.reset(entry.statistics());
+		// manifest has only files, which have been saved in the current format
+		tmp.savedChangeCount = tmp.changeCount;
+		return tmp;
+	}
+
 	/**
 	 * For backward compatibility
 	 */
@@ -173,59 +235,243 @@ public final class YearHistory {
 		return s.substring(0, 20);
 	}
 
-	private Path getStatePath() {
+	private static int toIndexDay(LocalDate d) {
+		return Math.toIntExact(d.toEpochDay());
+	}
+
+	/**
+	 * Converts a bound of a range query to the domain of {@link #index}. Dates too far away from the epoch are
+	 * clamped, which is fine for queries: nothing can be stored there.
+	 */
+	private static int toIndexBound(LocalDate d) {
+		long epochDay = d.toEpochDay();
+		return (int)Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, epochDay));
+	}
+
+	/**
+	 * @return where this history is stored in serialized form
+	 */
+	public Path getStatePath() {
 		return dataDirSupplier.getDataDir().resolve(relativeStatePath);
 	}
 
+	/**
+	 * @return empty, if the habit file can't be read
+	 */
+	private static Optional<Collection<LocalDate>> readPendingDates(Supplier<Collection<LocalDate>> reader,
+		Path statePath)
+	{
+		try {
+			return Optional.of(reader.get());
+		} catch (UncheckedIOException | JsonParseException e) {
+			System.err.println("Could not read '" + statePath.toAbsolutePath() + "': " + e);
+			return Optional.empty();
+		}
+	}
+
+	private void ensureLoaded() {
+		if (pendingDates == null) {
+			return;
+		}
+		Optional<Collection<LocalDate>> maybeDates = readPendingDates(pendingDates, getStatePath());
+		unreadable = maybeDates.isEmpty();
+		dates = new DateSet(maybeDates.orElse(List.of()));
+		index = new EpochDayIndex(dates);
+		rollups = new Rollups(dates);
+		pendingDates = null;
+		statistics.reset(summarize()); // in case the file doesn't match the manifest
+	}
+
+	private HabitStatistics.Summary summarize() {
+		if (index.isEmpty()) {
+			return HabitStatistics.Summary.EMPTY;
+		}
+		return new HabitStatistics.Summary(index.size(), LocalDate.ofEpochDay(index.first()),
+			LocalDate.ofEpochDay(index.last()));
+	}
+
+	/**
+	 * Listeners are notified only if the date wasn't turned on already.
+	 */
 	public void turnOn(LocalDate d) {
+		ensureLoaded();
+		if (!dates.add(d)) {
+			return;
+		}
 		System.out.println("Turned on " + d);
-		hasChanges = true;
-		dates.add(d);
+		changeCount++;
+		index.add(toIndexDay(d));
+		rollups.add(d);
 		listeners.forEach(l -> l.onTurnOn(d));
 	}
 
+	/**
+	 * Listeners are notified only if the date was turned on.
+	 */
 	public void turnOff(LocalDate d) {
+		ensureLoaded();
+		if (!dates.remove(d)) {
+			return;
+		}
 		System.out.println("Turned off " + d);
-		hasChanges = true;
-		dates.remove(d);
+		changeCount++;
+		index.remove(toIndexDay(d));
+		rollups.remove(d);
 		listeners.forEach(l -> l.onTurnOff(d));
 	}
 
+	/**
+	 * Turns on and off many dates at once. Listeners are notified once, with only the dates, which have actually
+	 * changed.
+	 */
+	public void update(Collection<LocalDate> toTurnOn, Collection<LocalDate> toTurnOff) {
+		ensureLoaded();
+		Set<LocalDate> turnedOn = new HashSet<>();
+		for (LocalDate d : toTurnOn) {
+			if (dates.add(d)) {
+				index.add(toIndexDay(d));
+				rollups.add(d);
+				turnedOn.add(d);
+			}
+		}
+		Set<LocalDate> turnedOff = new HashSet<>();
+		for (LocalDate d : toTurnOff) {
+			if (dates.remove(d)) {
+				index.remove(toIndexDay(d));
+				rollups.remove(d);
+				turnedOff.add(d);
+			}
+		}
+		if (turnedOn.isEmpty() && turnedOff.isEmpty()) {
+			return;
+		}
+		System.out.println("Turned on " + turnedOn.size() + " and turned off " + turnedOff.size() + " dates");
+		changeCount++;
+		Set<LocalDate> unmodifiableTurnedOn = Collections.unmodifiableSet(turnedOn);
+		Set<LocalDate> unmodifiableTurnedOff = Collections.unmodifiableSet(turnedOff);
+		listeners.forEach(l -> l.onChanged(unmodifiableTurnedOn, unmodifiableTurnedOff));
+	}
+
 	public boolean isTurnedOn(LocalDate d) {
+		ensureLoaded();
 		return dates.contains(d);
 	}
 
+	/**
+	 * @return number of dates, which are turned on
+	 */
+	public int size() {
+		ensureLoaded();
+		return index.size();
+	}
+
+	/**
+	 * @return number of dates turned on in the range from {@code from} to {@code to}, both inclusive
+	 */
+	public int countBetween(LocalDate from, LocalDate to) {
+		ensureLoaded();
+		return index.countBetween(toIndexBound(from), toIndexBound(to));
+	}
+
+	/**
+	 * @return the earliest date, which is turned on
+	 */
+	public Optional<LocalDate> first() {
+		ensureLoaded();
+		if (index.isEmpty()) {
+			return Optional.empty();
+		}
+		return Optional.of(LocalDate.ofEpochDay(index.first()));
+	}
+
+	/**
+	 * @return the latest date, which is turned on
+	 */
+	public Optional<LocalDate> last() {
+		ensureLoaded();
+		if (index.isEmpty()) {
+			return Optional.empty();
+		}
+		return Optional.of(LocalDate.ofEpochDay(index.last()));
+	}
+
+	/**
+	 * Performs the given action for each date turned on in the range from {@code from} to {@code to}, both
+	 * inclusive, in chronological order.
+	 *
+	 * @param action consumer of {@linkplain LocalDate#toEpochDay() epoch days}
+	 */
+	public void forEachBetween(LocalDate from, LocalDate to, IntConsumer action) {
+		ensureLoaded();
+		index.forEachBetween(toIndexBound(from), toIndexBound(to), action);
+	}
+
+	/**
+	 * Reads all dates of the given year at once.
+	 *
+	 * @return a new bit set, in which bit {@code i} is set, if the day of year {@code i + 1} is turned on
+	 */
+	public BitSet getDaysOfYear(Year year) {
+		ensureLoaded();
+		return dates.daysOfYear(year.getValue());
+	}
+
 	public IntStream years() {
-		return dates.stream()
-			.mapToInt(LocalDate::getYear)
-			.distinct();
+		ensureLoaded();
+		return dates.years();
 	}
 
-	public void forceSave() {
-		hasChanges = true;
-		save();
+	/**
+	 * @return {@code true} if this history has changes since last saving
+	 */
+	public boolean hasChanges() {
+		return changeCount != savedChangeCount;
 	}
 
-	public void save() {
-		if (!hasChanges) {
-			return;
+	/**
+	 * @return {@code true} if the habit file couldn't be read, when the dates were needed for the first time. Such
+	 * history can't be saved.
+	 */
+	public boolean isUnreadable() {
+		return unreadable;
+	}
+
+	/**
+	 * Takes an immutable snapshot of this history, which can be {@linkplain Snapshot#write() written} from any thread.
+	 * Must be called from the thread, which modifies this history.
+	 *
+	 * @return empty, if there are no changes since last saving, or if the history is
+	 * {@linkplain #isUnreadable() unreadable}
+	 */
+	public Optional<Snapshot> snapshot() {
+		if (!hasChanges()) {
+			return Optional.empty();
 		}
-		Path statePath = getStatePath();
-		try {
-			System.out.println("\tSaving to '" + statePath.toAbsolutePath() + "'...");
-			Path tmpFile = Files.createTempFile(statePath.getParent(), "resoday", ".habit.tmp");
-			SerializableYearHistory toSave = new SerializableYearHistory(dates, name, id, visibility,
-				habitCalendarLayout);
-			try (BufferedWriter w = Files.newBufferedWriter(tmpFile)) {
-				toSave.writeToJson(w);
-			}
-			Files.move(tmpFile, statePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
-			System.out.printf("\tSaved %d dates for habit '%s'.%n", dates.size(), getName());
-		} catch (IOException e) {
-			System.err.println("Could not save current state in '" + statePath.toAbsolutePath() + "': " + e);
-			e.printStackTrace();
+		return forceSnapshot();
+	}
+
+	/**
+	 * Same as {@link #snapshot()}, but takes the snapshot even if there are no changes since last saving.
+	 *
+	 * @return empty, if the history is {@linkplain #isUnreadable() unreadable}: saving it would overwrite the habit
+	 * file with no dates
+	 */
+	public Optional<Snapshot> forceSnapshot() {
+		ensureLoaded();
+		if (unreadable) {
+			return Optional.empty();
 		}
-		hasChanges = false;
+		SerializableYearHistory data = new SerializableYearHistory(dates.toList(), name, id, visibility,
+			habitCalendarLayout);
+		return Optional.of(new Snapshot(getStatePath(), data, changeCount));
+	}
+
+	/**
+	 * Must be called from the thread, which modifies this history, after the given snapshot of this history has been
+	 * successfully written.
+	 */
+	public void markSaved(Snapshot snapshot) {
+		savedChangeCount = Math.max(savedChangeCount, snapshot.changeCount());
 	}
 
 	public void reHideV0V1File() {
@@ -257,6 +503,57 @@ public final class YearHistory {
 		}
 	}
 
+	/**
+	 * @return statistics, which are available even before the dates of this history have been read
+	 */
+	public HabitStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Takes a snapshot of the dates of this history, which can be used from any thread. If the dates haven't been
+	 * read yet, the returned supplier reads them on the thread, which calls it, without reading them into this history.
+	 * Must be called from the thread, which modifies this history.
+	 *
+	 * @return supplier of a set, which must not be modified
+	 */
+	public Supplier<DateSet> snapshotDates() {
+		if (pendingDates != null) {
+			Supplier<Collection<LocalDate>> reader = pendingDates;
+			Path statePath = getStatePath();
+			return () -> new DateSet(readPendingDates(reader, statePath).orElse(List.of()));
+		}
+		DateSet copy = new DateSet(dates);
+		return () -> copy;
+	}
+
+	/**
+	 * Same as {@link #snapshotDates()}, but for the {@link Rollups} of this history. Takes a copy of the counters,
+	 * without going over the dates.
+	 *
+	 * @param datesSnapshot snapshot of the dates of this history, from which the rollups are built, if the dates
+	 * haven't been read yet. This way, the habit file is read only once, when both are needed.
+	 */
+	public Supplier<Rollups> snapshotRollups(Supplier<DateSet> datesSnapshot) {
+		if (pendingDates != null) {
+			return () -> new Rollups(datesSnapshot.get());
+		}
+		Rollups copy = rollups.copy();
+		return () -> copy;
+	}
+
+	/**
+	 * Streaks are built on first request, and then are kept up-to-date on each change.
+	 */
+	public Streaks getStreaks() {
+		ensureLoaded();
+		if (streaks == null) {
+			streaks = new Streaks(index);
+			listeners.add(streaks);
+		}
+		return streaks;
+	}
+
 	public Runnable addListener(YearHistoryListener listener) {
 		listeners.add(listener);
 		return () -> listeners.remove(listener);
@@ -271,7 +568,7 @@ public final class YearHistory {
 			return;
 		}
 		name = Objects.requireNonNull(newHabitName);
-		hasChanges = true;
+		changeCount++;
 	}
 
 	public String getId() {
@@ -284,7 +581,7 @@ public final class YearHistory {
 
 	public void setVisibility(Visibility visibility) {
 		if (this.visibility != Objects.requireNonNull(visibility)) {
-			hasChanges = true;
+			changeCount++;
 		}
 		this.visibility = visibility;
 	}
@@ -298,11 +595,39 @@ public final class YearHistory {
 			return;
 		}
 		this.habitCalendarLayout = habitCalendarLayout;
-		hasChanges = true;
+		changeCount++;
 	}
 
 	public NavigableSet<LocalDate> toNavigableSet() {
-		return new TreeSet<>(dates);
+		ensureLoaded();
+		return new TreeSet<>(dates.toList());
+	}
+
+	/**
+	 * State of a {@link YearHistory} at some point in time, ready to be saved.
+	 *
+	 * @param changeCount number of changes of the history at the time of taking of this snapshot
+	 */
+	public record Snapshot(Path statePath, SerializableYearHistory data, long changeCount) {
+		/**
+		 * @return {@code true} if the snapshot has been written successfully
+		 */
+		public boolean write() {
+			try {
+				System.out.println("\tSaving to '" + statePath.toAbsolutePath() + "'...");
+				Path tmpFile = Files.createTempFile(statePath.getParent(), "resoday", ".habit.tmp");
+				try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpFile))) {
+					data.writeTo(out);
+				}
+				Files.move(tmpFile, statePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				System.out.printf("\tSaved %d dates for habit '%s'.%n", data.getDates().size(), data.getName());
+				return true;
+			} catch (IOException e) {
+				System.err.println("Could not save current state in '" + statePath.toAbsolutePath() + "': " + e);
+				e.printStackTrace();
+				return false;
+			}
+		}
 	}
 
 	public enum Visibility {
@@ -1,9 +1,22 @@
 package dev.andrybak.resoday;
 
 import java.time.LocalDate;
+import java.util.Set;
 
 public interface YearHistoryListener {
 	void onTurnOn(LocalDate d);
 
 	void onTurnOff(LocalDate d);
+
+	/**
+	 * Called once for a {@linkplain YearHistory#update bulk change}. By default, calls {@link #onTurnOn} and
+	 * {@link #onTurnOff} for each date.
+	 *
+	 * @param turnedOn dates, which have been turned on
+	 * @param turnedOff dates, which have been turned off
+	 */
+	default void onChanged(Set<LocalDate> turnedOn, Set<LocalDate> turnedOff) {
+		turnedOn.forEach(this::onTurnOn);
+		turnedOff.forEach(this::onTurnOff);
+	}
 }
@@ -0,0 +1,115 @@
+package dev.andrybak.resoday.gui;
+
+import javax.swing.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Notifies about the change of the current date: exactly at the local midnight, and also after changes of the system
+ * clock.
+ * <p>
+ * Swing timers don't follow the wall clock, so a watchdog checks regularly, whether the wall clock has jumped, and
+ * reschedules the midnight timer if needed. The time zone is the default time zone of the JVM, which is fixed at
+ * startup. Must be used only from the EDT.
+ */
+final class DayRolloverService {
+	private static final Duration WATCHDOG_PERIOD = Duration.ofMinutes(1);
+	/**
+	 * Difference between elapsed wall clock time and elapsed monotonic time, which is considered a clock change.
+	 */
+	private static final Duration CLOCK_JUMP_THRESHOLD = Duration.ofSeconds(2);
+	/**
+	 * Timers may fire a bit early. The date is checked a little after midnight to be safe.
+	 */
+	private static final Duration MIDNIGHT_MARGIN = Duration.ofMillis(100);
+
+	private final Clock clock;
+	private final LongSupplier nanoTime;
+	private final Consumer<LocalDate> listener;
+	private final Timer midnightTimer;
+	private final Timer watchdogTimer;
+	private LocalDate today;
+	private long lastWallMillis;
+	private long lastNanos;
+
+	/**
+	 * @param listener gets the new current date, once per change of the date
+	 */
+	DayRolloverService(Consumer<LocalDate> listener) {
+		this(Clock.systemDefaultZone(), System::nanoTime, listener);
+	}
+
+	/**
+	 * @param clock wall clock with the time zone of the dates
+	 * @param nanoTime monotonic clock, same as {@link System#nanoTime()}
+	 */
+	DayRolloverService(Clock clock, LongSupplier nanoTime, Consumer<LocalDate> listener) {
+		this.clock = clock;
+		this.nanoTime = nanoTime;
+		this.listener = listener;
+		midnightTimer = new Timer(0, ignored -> check());
+		midnightTimer.setRepeats(false);
+		watchdogTimer = new Timer(Math.toIntExact(WATCHDOG_PERIOD.toMillis()), ignored -> watch());
+	}
+
+	void start() {
+		today = LocalDate.now(clock);
+		rememberClocks();
+		scheduleMidnight();
+		watchdogTimer.start();
+	}
+
+	void stop() {
+		midnightTimer.stop();
+		watchdogTimer.stop();
+	}
+
+	private void rememberClocks() {
+		lastWallMillis = clock.millis();
+		lastNanos = nanoTime.getAsLong();
+	}
+
+	/**
+	 * @return how long to wait from {@code now} until the start of the next day in the time zone of {@code now}
+	 */
+	static Duration untilNextMidnight(ZonedDateTime now) {
+		ZonedDateTime nextMidnight = now.toLocalDate().plusDays(1).atStartOfDay(now.getZone());
+		return Duration.between(now, nextMidnight).plus(MIDNIGHT_MARGIN);
+	}
+
+	private void scheduleMidnight() {
+		long delayMillis = untilNextMidnight(ZonedDateTime.now(clock)).toMillis();
+		midnightTimer.setInitialDelay(Math.toIntExact(Math.max(0, delayMillis)));
+		midnightTimer.restart();
+	}
+
+	/**
+	 * @return delay of the midnight timer in milliseconds, which was set the last time the timer was scheduled
+	 */
+	int getMidnightDelayMillis() {
+		return midnightTimer.getInitialDelay();
+	}
+
+	void watch() {
+		long elapsedWallMillis = clock.millis() - lastWallMillis;
+		long elapsedMillis = Duration.ofNanos(nanoTime.getAsLong() - lastNanos).toMillis();
+		rememberClocks();
+		if (Math.abs(elapsedWallMillis - elapsedMillis) > CLOCK_JUMP_THRESHOLD.toMillis()) {
+			System.out.println("System clock has changed.");
+			check();
+		}
+	}
+
+	void check() {
+		LocalDate newToday = LocalDate.now(clock);
+		if (!newToday.equals(today)) {
+			today = newToday;
+			listener.accept(today);
+		}
+		scheduleMidnight();
+	}
+}
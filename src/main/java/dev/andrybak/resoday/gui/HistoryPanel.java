@@ -1,41 +1,90 @@
 package dev.andrybak.resoday.gui;
 
+import dev.andrybak.resoday.Streaks;
 import dev.andrybak.resoday.YearHistory;
 import dev.andrybak.resoday.YearHistoryListener;
 import dev.andrybak.resoday.gui.settings.CalendarLayoutSettingProvider;
+import dev.andrybak.resoday.gui.util.IdleTasks;
+import dev.andrybak.resoday.settings.gui.CalendarLayoutSetting;
 import dev.andrybak.resoday.settings.gui.HabitCalendarLayout;
 
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.time.LocalDate;
 import java.time.Year;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Shows to the user {@link YearHistory habit histories}, with access to one year at a time.
+ * <p>
+ * Components of the panel are created lazily, when the panel is shown for the first time, see {@link #ensureBuilt()}.
+ * Until then, the panel is an empty placeholder, which still reacts to changes of the history, e.g. with sounds.
+ * <p>
+ * Panels of the years next to the shown one are built in advance, when the EDT is idle, so that switching to them is
+ * instant.
  */
 final class HistoryPanel extends JPanel {
+	private static final int MAX_CACHED_YEAR_PANELS = 5;
 	private final YearHistory history;
+	private final CalendarLayoutSettingProvider calendarLayoutSettingProvider;
+	private final List<Runnable> listenerRemovals = new ArrayList<>();
+	private final IdleTasks prefetcher = new IdleTasks();
 	/**
 	 * Shows to the user, which year is currently presented by {@link #shownYearPanel}.
 	 */
-	private final JLabel shownYearLabel;
-	private final List<Runnable> listenerRemovals = new ArrayList<>();
+	private JLabel shownYearLabel;
+	/**
+	 * Shows current and longest streaks of the history.
+	 */
+	private JLabel streaksLabel;
 	private Year shownYear;
+	/**
+	 * {@code null} until the panel is {@linkplain #ensureBuilt() built}.
+	 */
 	private YearPanel shownYearPanel;
+	/**
+	 * Recently shown panels, including {@link #shownYearPanel}, in access order. Kept in sync with the history by
+	 * {@link ButtonStateUpkeep}.
+	 */
+	private final Map<YearPanelKey, YearPanel> yearPanels = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<YearPanelKey, YearPanel> eldest) {
+			return size() > MAX_CACHED_YEAR_PANELS;
+		}
+	};
 
 	HistoryPanel(YearHistory history, CalendarLayoutSettingProvider calendarLayoutSettingProvider) {
 		super(new BorderLayout());
 		this.history = history;
-		listenerRemovals.add(history.addListener(new AudioPlayer()));
+		this.calendarLayoutSettingProvider = calendarLayoutSettingProvider;
+		listenerRemovals.add(history.addListener(SoundEngine.get()));
 		listenerRemovals.add(history.addListener(new ButtonStateUpkeep()));
+	}
 
+	private boolean isBuilt() {
+		return shownYearPanel != null;
+	}
+
+	/**
+	 * Creates the components of this panel, if it hasn't been done yet. Must be called before the panel is shown.
+	 */
+	void ensureBuilt() {
+		if (isBuilt()) {
+			return;
+		}
 		JButton pastButton = new JButton("<");
 		pastButton.addActionListener(ignored -> {
 			shownYear = shownYear.minusYears(1);
@@ -55,6 +104,9 @@ final class HistoryPanel extends JPanel {
 		topPanel.add(pastButton);
 		topPanel.add(shownYearLabel);
 		topPanel.add(futureButton);
+		streaksLabel = new JLabel();
+		topPanel.add(streaksLabel);
+		updateStreaksLabel(LocalDate.now());
 		this.add(topPanel, BorderLayout.NORTH);
 
 		final Year currentYear = Year.now();
@@ -64,17 +116,78 @@ final class HistoryPanel extends JPanel {
 			.map(Year::of)
 			.orElse(currentYear);
 		createShownYearPanel(calendarLayoutSettingProvider);
+		this.revalidate();
 	}
 
+	/**
+	 * Takes the panel for {@link #shownYear} from {@link #yearPanels}. If there is none, the least recently shown
+	 * panel is rebound to the year, or, if the cache isn't full yet, a new panel is created.
+	 */
 	private void createShownYearPanel(CalendarLayoutSettingProvider calendarLayoutSettingProvider) {
 		shownYearLabel.setText(shownYear.toString());
-		shownYearPanel = new YearPanel(history, shownYear,
-			() -> history
-				.getHabitCalendarLayout()
-				.toSetting()
-				.orElseGet(calendarLayoutSettingProvider::getCalendarLayoutSetting)
-		);
+		YearPanelKey key = new YearPanelKey(shownYear, getCalendarLayoutSetting(calendarLayoutSettingProvider));
+		YearPanel yearPanel = yearPanels.get(key);
+		if (yearPanel == null) {
+			yearPanel = createYearPanel(key);
+			yearPanels.put(key, yearPanel);
+		}
+		shownYearPanel = yearPanel;
+		shownYearPanel.updateDecorations(LocalDate.now()); // could have been cached before the date has changed
 		this.add(shownYearPanel, BorderLayout.CENTER);
+		prefetchAdjacentYearPanels();
+	}
+
+	private CalendarLayoutSetting getCalendarLayoutSetting(CalendarLayoutSettingProvider calendarLayoutSettingProvider) {
+		return history
+			.getHabitCalendarLayout()
+			.toSetting()
+			.orElseGet(calendarLayoutSettingProvider::getCalendarLayoutSetting);
+	}
+
+	private YearPanel createYearPanel(YearPanelKey key) {
+		return takeEldestYearPanel(key.calendarLayoutSetting())
+			.map(p -> {
+				p.rebind(history, key.year());
+				return p;
+			})
+			.orElseGet(() -> new YearPanel(history, key.year(), key::calendarLayoutSetting));
+	}
+
+	/**
+	 * Schedules building of panels for the previous and the next years, if they aren't cached yet. The previous year
+	 * goes first, as flipping back is the most common navigation.
+	 */
+	private void prefetchAdjacentYearPanels() {
+		prefetcher.cancelAll();
+		Year year = shownYear;
+		prefetcher.submit(() -> prefetchYearPanel(year.minusYears(1)));
+		prefetcher.submit(() -> prefetchYearPanel(year.plusYears(1)));
+	}
+
+	private void prefetchYearPanel(Year year) {
+		YearPanelKey key = new YearPanelKey(year, getCalendarLayoutSetting(calendarLayoutSettingProvider));
+		if (yearPanels.containsKey(key)) {
+			return;
+		}
+		yearPanels.put(key, createYearPanel(key));
+	}
+
+	/**
+	 * @return least recently shown panel with the given layout, removed from the cache, if the cache is full
+	 */
+	private Optional<YearPanel> takeEldestYearPanel(CalendarLayoutSetting calendarLayoutSetting) {
+		if (yearPanels.size() < MAX_CACHED_YEAR_PANELS) {
+			return Optional.empty();
+		}
+		Iterator<Map.Entry<YearPanelKey, YearPanel>> it = yearPanels.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<YearPanelKey, YearPanel> e = it.next();
+			if (e.getKey().calendarLayoutSetting() == calendarLayoutSetting && e.getValue() != shownYearPanel) {
+				it.remove();
+				return Optional.of(e.getValue());
+			}
+		}
+		return Optional.empty();
 	}
 
 	private void recreateShownYearPanel(CalendarLayoutSettingProvider calendarLayoutSettingProvider) {
@@ -107,10 +220,19 @@ final class HistoryPanel extends JPanel {
 	}
 
 	/**
-	 * Update UI decorations (bells and whistles) of this panel, which may depend on current time.
+	 * Update UI decorations (bells and whistles) of this panel, which depend on the current date. Panels, which
+	 * haven't been built yet, have nothing to update.
 	 */
-	void updateDecorations() {
-		shownYearPanel.updateDecorations();
+	void updateDecorations(LocalDate today) {
+		yearPanels.values().forEach(p -> p.updateDecorations(today));
+		if (isBuilt()) {
+			updateStreaksLabel(today);
+		}
+	}
+
+	private void updateStreaksLabel(LocalDate today) {
+		Streaks streaks = history.getStreaks();
+		streaksLabel.setText("Streak: " + streaks.getCurrent(today) + " (longest: " + streaks.getLongest() + ")");
 	}
 
 	String getHistoryName() {
@@ -129,27 +251,78 @@ final class HistoryPanel extends JPanel {
 	 * Must be called when this panel is no longer in use.
 	 */
 	void close() {
+		prefetcher.cancelAll();
 		listenerRemovals.forEach(Runnable::run);
 	}
 
 	public void newSettings(CalendarLayoutSettingProvider calendarLayoutSettingProvider) {
+		if (!isBuilt()) {
+			return; // new settings will be picked up by ensureBuilt
+		}
+		yearPanels.clear();
 		recreateShownYearPanel(calendarLayoutSettingProvider);
 	}
 
 	public void setHabitCalendarLayout(HabitCalendarLayout habitCalendarLayout, CalendarLayoutSettingProvider calendarLayoutSettingProvider) {
 		history.setHabitCalendarLayout(habitCalendarLayout);
+		if (!isBuilt()) {
+			return;
+		}
+		yearPanels.clear();
 		recreateShownYearPanel(calendarLayoutSettingProvider);
 	}
 
+	/**
+	 * Collects changes of the history during one event of the EDT, and applies them to the panels at once, so that
+	 * bulk changes cause a single repaint.
+	 */
 	private class ButtonStateUpkeep implements YearHistoryListener {
+		private final Set<LocalDate> turnedOn = new HashSet<>();
+		private final Set<LocalDate> turnedOff = new HashSet<>();
+		private boolean flushScheduled = false;
+
 		@Override
 		public void onTurnOn(LocalDate d) {
-			shownYearPanel.turnOnButton(d);
+			turnedOff.remove(d);
+			turnedOn.add(d);
+			scheduleFlush();
 		}
 
 		@Override
 		public void onTurnOff(LocalDate d) {
-			shownYearPanel.turnOffButton(d);
+			turnedOn.remove(d);
+			turnedOff.add(d);
+			scheduleFlush();
+		}
+
+		@Override
+		public void onChanged(Set<LocalDate> turnedOn, Set<LocalDate> turnedOff) {
+			this.turnedOff.removeAll(turnedOn);
+			this.turnedOn.addAll(turnedOn);
+			this.turnedOn.removeAll(turnedOff);
+			this.turnedOff.addAll(turnedOff);
+			scheduleFlush();
 		}
+
+		private void scheduleFlush() {
+			if (flushScheduled) {
+				return;
+			}
+			flushScheduled = true;
+			SwingUtilities.invokeLater(this::flush);
+		}
+
+		private void flush() {
+			flushScheduled = false;
+			yearPanels.values().forEach(p -> p.updateButtons(turnedOn, turnedOff));
+			if (isBuilt()) {
+				updateStreaksLabel(LocalDate.now());
+			}
+			turnedOn.clear();
+			turnedOff.clear();
+		}
+	}
+
+	private record YearPanelKey(Year year, CalendarLayoutSetting calendarLayoutSetting) {
 	}
 }
@@ -22,6 +22,9 @@ import dev.andrybak.resoday.settings.gui.GuiSettings;
 import dev.andrybak.resoday.settings.gui.HabitCalendarLayout;
 import dev.andrybak.resoday.settings.storage.CustomDataDirectory;
 import dev.andrybak.resoday.storage.HabitFiles;
+import dev.andrybak.resoday.storage.HabitJournal;
+import dev.andrybak.resoday.storage.HabitLoader;
+import dev.andrybak.resoday.storage.PersistenceService;
 import dev.andrybak.resoday.storage.SortOrder;
 
 import javax.swing.AbstractAction;
@@ -47,7 +50,6 @@ import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.HashSet;
@@ -58,8 +60,6 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toCollection;
@@ -67,12 +67,16 @@ import static java.util.stream.Collectors.toSet;
 
 public final class MainGui implements CalendarLayoutSettingProvider {
 	private static final Duration AUTO_SAVE_PERIOD = Duration.ofMinutes(10);
+	private static final Duration SHUTDOWN_SAVE_TIMEOUT = Duration.ofSeconds(10);
 
 	private final JFrame window = new JFrame(StringConstants.APP_NAME_GUI);
 	private final JPanel content;
 	private final Histories histories = new Histories();
 	private final Timer autoSaveTimer;
+	private final DayRolloverService dayRolloverService;
 	private final GuiSettingsSaver guiSettingsSaver = new GuiSettingsSaver();
+	private final HabitJournal journal;
+	private final PersistenceService persistenceService;
 	private GuiSettings guiSettings;
 	private Path dataDir;
 
@@ -80,16 +84,25 @@ public final class MainGui implements CalendarLayoutSettingProvider {
 		this.dataDir = dataDir;
 		content = new JPanel(new BorderLayout());
 		guiSettings = GuiSettings.read(configDir);
+		journal = HabitJournal.open(getDataDirSupplier());
+		persistenceService = new PersistenceService(journal, getDataDirSupplier());
 
 		JTabbedPane tabs = new JTabbedPane();
-		try (Stream<Path> paths = Files.walk(dataDir)) {
-			Map<String/* id */, YearHistory> yearHistories = paths
-				.filter(Files::isRegularFile)
-				.filter(Files::isReadable)
-				.filter(HabitFiles.IS_HABIT_FILE)
-				.map(statePath -> YearHistory.read(getDataDirSupplier(), statePath))
-				.flatMap(Optional::stream)
-				.collect(Collectors.toMap(YearHistory::getId, Function.identity()));
+		try {
+			Map<String/* id */, YearHistory> yearHistories = HabitLoader.load(getDataDirSupplier());
+			journal.replay((id, d, turnedOn) -> {
+				YearHistory yearHistory = yearHistories.get(id);
+				if (yearHistory == null) {
+					System.err.println("Warning: journal has changes for unknown history ID='" + id + "'");
+				} else if (turnedOn) {
+					yearHistory.turnOn(d);
+				} else {
+					yearHistory.turnOff(d);
+				}
+			});
+			yearHistories.values().forEach(this::attachJournal);
+			// saves replayed changes, if any, and updates the manifest
+			persistenceService.save(List.copyOf(yearHistories.values()));
 			Optional<SortOrder> maybeOrder = SortOrder.read(dataDir);
 			final Stream<YearHistory> sortedYearHistories;
 			if (maybeOrder.isPresent()) {
@@ -115,6 +128,9 @@ public final class MainGui implements CalendarLayoutSettingProvider {
 
 		tabs.addChangeListener(ignored -> updateWindowTitle(tabs));
 		updateWindowTitle(tabs);
+		// calendars of habits are created only when their tabs are shown for the first time
+		tabs.addChangeListener(ignored -> getCurrentHistoryPanel(tabs).ifPresent(HistoryPanel::ensureBuilt));
+		getCurrentHistoryPanel(tabs).ifPresent(HistoryPanel::ensureBuilt);
 
 		content.add(tabs, BorderLayout.CENTER);
 
@@ -127,11 +143,17 @@ public final class MainGui implements CalendarLayoutSettingProvider {
 		);
 
 		autoSaveTimer = new Timer(Math.toIntExact(AUTO_SAVE_PERIOD.toMillis()), ignored -> autoSave(configDir));
-		autoSaveTimer.addActionListener(ignored -> histories.forEachPanel(HistoryPanel::updateDecorations));
+		dayRolloverService = new DayRolloverService(today ->
+			histories.forEachPanel(historyPanel -> historyPanel.updateDecorations(today))
+		);
 
 		setUpMenuBar(tabs, configDir);
 	}
 
+	private void attachJournal(YearHistory yearHistory) {
+		yearHistory.addListener(journal.listenerFor(yearHistory.getId()));
+	}
+
 	private DataDirSupplier getDataDirSupplier() {
 		return () -> dataDir;
 	}
@@ -206,7 +228,7 @@ public final class MainGui implements CalendarLayoutSettingProvider {
 				// Re-save everything in package `dev.andrybak.resoday.storage` into new data dir.
 				// Hopefully in the future no new kinds of files will be saved in the data dir :-)
 				SortOrder.read(oldDataDir).ifPresent(order -> order.save(getDataDirSupplier()));
-				histories.forEachHistory(YearHistory::forceSave);
+				persistenceService.forceSave(histories.histories().toList());
 				CustomDataDirectory.save(configDir, dataDir);
 			},
 			createHabitCalendarLayoutsOwner(tabs, ref::set)
@@ -253,6 +275,7 @@ public final class MainGui implements CalendarLayoutSettingProvider {
 			String newId = HabitFiles.createNewId();
 			String filename = HabitFiles.createNewFilename(newId, habitName);
 			YearHistory newHistory = new YearHistory(getDataDirSupplier(), Path.of(filename), habitName, newId);
+			attachJournal(newHistory);
 			HistoryPanel newPanel = new HistoryPanel(newHistory, this);
 			histories.add(newHistory, newPanel);
 			tabs.addTab(habitName, newPanel);
@@ -450,24 +473,23 @@ public final class MainGui implements CalendarLayoutSettingProvider {
 			@Override
 			public void windowClosing(WindowEvent e) {
 				autoSaveTimer.stop();
-				save(configDir);
+				dayRolloverService.stop();
+				persistenceService.shutdown(histories.histories().toList(), SHUTDOWN_SAVE_TIMEOUT);
+				guiSettingsSaver.save(configDir, guiSettings);
 				WindowPosition.from(window).save(configDir);
 			}
 		});
 		Optional<WindowPosition> maybePos = WindowPosition.read(configDir);
 		maybePos.ifPresent(pos -> pos.applyTo(window));
 		autoSaveTimer.start();
+		dayRolloverService.start();
 	}
 
 	private void autoSave(Path configDir) {
 		System.out.println("Auto-saving...");
-		save(configDir);
-		System.out.println("Auto-saving complete.");
-	}
-
-	private void save(Path configDir) {
-		histories.forEachHistory(YearHistory::save);
+		persistenceService.save(histories.histories().toList());
 		guiSettingsSaver.save(configDir, guiSettings);
+		System.out.println("Auto-saving scheduled.");
 	}
 
 	@Override
@@ -0,0 +1,242 @@
+package dev.andrybak.resoday.gui;
+
+import dev.andrybak.resoday.YearHistoryListener;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Plays sounds, when days are turned on and off. One instance is shared by all habits, see {@link #get()}.
+ * <p>
+ * Sounds are decoded once, on first use. They are mixed in software into a single long-lived {@link SourceDataLine}
+ * on a dedicated low-priority thread, so that any number of quick toggles needs only one audio line, and the EDT only
+ * puts requests into a queue.
+ */
+final class SoundEngine implements YearHistoryListener {
+	private static final AudioFormat FORMAT = new AudioFormat(48_000, 16, 2, true, false);
+	/**
+	 * Number of frames mixed at once: 10 milliseconds.
+	 */
+	private static final int CHUNK_FRAMES = 480;
+	/**
+	 * Size of the buffer of the line in chunks. Bigger buffer is more robust, but makes sounds late.
+	 */
+	private static final int LINE_BUFFER_CHUNKS = 8;
+	/**
+	 * Maximum number of simultaneously playing sounds. The oldest sound is cut short, when a new one doesn't fit.
+	 */
+	private static final int MAX_VOICES = 8;
+	private static final SoundEngine INSTANCE = new SoundEngine();
+
+	private final BlockingQueue<Sound> requests = new LinkedBlockingQueue<>();
+	/**
+	 * Accessed only from the mixing thread. {@code null} until the first sound is played.
+	 */
+	private SourceDataLine line;
+	/**
+	 * Whether sound is disabled, because the line could not be opened or mixing has failed. Written only from the
+	 * mixing thread.
+	 */
+	private volatile boolean broken = false;
+
+	private SoundEngine() {
+		Thread t = new Thread(this::run, "Resoday sound");
+		t.setDaemon(true);
+		t.setPriority(Thread.MIN_PRIORITY);
+		t.start();
+	}
+
+	static SoundEngine get() {
+		return INSTANCE;
+	}
+
+	private void play(Sound sound) {
+		if (!broken) {
+			requests.add(sound);
+		}
+	}
+
+	@Override
+	public void onTurnOn(LocalDate d) {
+		play(Sound.POSITIVE);
+	}
+
+	@Override
+	public void onTurnOff(LocalDate d) {
+		play(Sound.NEGATIVE);
+	}
+
+	@Override
+	public void onChanged(Set<LocalDate> turnedOn, Set<LocalDate> turnedOff) {
+		// one sound for the whole bulk change
+		play(turnedOn.isEmpty() ? Sound.NEGATIVE : Sound.POSITIVE);
+	}
+
+	private void run() {
+		try {
+			mixLoop();
+		} catch (InterruptedException e) {
+			// nothing to clean up, the thread is a daemon
+		} catch (RuntimeException e) {
+			// a broken sound system shouldn't break the rest of the application
+			System.err.println("Could not play sounds. Sound is disabled.");
+			e.printStackTrace();
+			broken = true;
+			requests.clear();
+			if (line != null) {
+				line.close();
+			}
+		}
+	}
+
+	private void mixLoop() throws InterruptedException {
+		List<Voice> voices = new ArrayList<>();
+		int[] mix = new int[CHUNK_FRAMES * FORMAT.getChannels()];
+		ByteBuffer out = ByteBuffer.allocate(mix.length * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		while (true) {
+			if (voices.isEmpty()) {
+				if (line != null && line.isRunning()) {
+					line.drain();
+					line.stop();
+				}
+				addVoice(voices, requests.take());
+			}
+			Sound next;
+			while ((next = requests.poll()) != null) {
+				addVoice(voices, next);
+			}
+			if (!ensureLineOpen()) {
+				voices.clear();
+				continue;
+			}
+			mixChunk(voices, mix);
+			out.clear();
+			for (int sample : mix) {
+				out.putShort((short)Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample)));
+			}
+			if (!line.isRunning()) {
+				line.start();
+			}
+			line.write(out.array(), 0, out.position());
+		}
+	}
+
+	private static void addVoice(List<Voice> voices, Sound sound) {
+		System.out.println("Playing sound: " + sound.resourceName);
+		if (voices.size() >= MAX_VOICES) {
+			voices.remove(0);
+		}
+		voices.add(new Voice(sound.getSamples()));
+	}
+
+	/**
+	 * Sums next chunks of all voices into {@code mix}, and forgets voices, which have finished.
+	 */
+	private static void mixChunk(List<Voice> voices, int[] mix) {
+		Arrays.fill(mix, 0);
+		Iterator<Voice> it = voices.iterator();
+		while (it.hasNext()) {
+			Voice v = it.next();
+			int n = Math.min(mix.length, v.samples.length - v.position);
+			for (int i = 0; i < n; i++) {
+				mix[i] += v.samples[v.position + i];
+			}
+			v.position += n;
+			if (v.position >= v.samples.length) {
+				it.remove();
+			}
+		}
+	}
+
+	private boolean ensureLineOpen() {
+		if (line != null) {
+			return true;
+		}
+		if (broken) {
+			return false;
+		}
+		try {
+			SourceDataLine l = AudioSystem.getSourceDataLine(FORMAT);
+			l.open(FORMAT, CHUNK_FRAMES * FORMAT.getFrameSize() * LINE_BUFFER_CHUNKS);
+			line = l;
+			return true;
+		} catch (LineUnavailableException | IllegalArgumentException e) {
+			System.err.println("Could not open audio line. Sound is disabled.");
+			e.printStackTrace();
+			broken = true;
+			return false;
+		}
+	}
+
+	private enum Sound {
+		POSITIVE("positive.wav"),
+		NEGATIVE("negative.wav");
+
+		private final String resourceName;
+		/**
+		 * Interleaved samples in {@link #FORMAT}. {@code null} until first use. Accessed only from the mixing thread.
+		 */
+		private short[] samples;
+
+		Sound(String resourceName) {
+			this.resourceName = resourceName;
+		}
+
+		private short[] getSamples() {
+			if (samples == null) {
+				try {
+					samples = decode();
+				} catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+					System.err.println("Could not load sound '" + resourceName + "'.");
+					e.printStackTrace();
+					samples = new short[0];
+				}
+			}
+			return samples;
+		}
+
+		private short[] decode() throws UnsupportedAudioFileException, IOException {
+			InputStream resource = MainGui.class.getResourceAsStream(resourceName);
+			if (resource == null) {
+				throw new IOException("Could not find resource '" + resourceName + "'");
+			}
+			try (
+				BufferedInputStream buffered = new BufferedInputStream(resource);
+				AudioInputStream original = AudioSystem.getAudioInputStream(buffered);
+				AudioInputStream converted = original.getFormat().matches(FORMAT) ?
+					original : AudioSystem.getAudioInputStream(FORMAT, original)
+			) {
+				ByteBuffer bytes = ByteBuffer.wrap(converted.readAllBytes()).order(ByteOrder.LITTLE_ENDIAN);
+				short[] result = new short[bytes.remaining() / Short.BYTES];
+				bytes.asShortBuffer().get(result);
+				return result;
+			}
+		}
+	}
+
+	private static final class Voice {
+		private final short[] samples;
+		private int position = 0;
+
+		private Voice(short[] samples) {
+			this.samples = samples;
+		}
+	}
+}
@@ -11,34 +11,47 @@ import javax.swing.JScrollPane;
 import java.awt.BorderLayout;
 import java.time.LocalDate;
 import java.time.Year;
+import java.util.Set;
 
 final class YearPanel extends JPanel {
 	private final CalendarPanel calendarPanel;
+	/**
+	 * Date, which is currently highlighted as today.
+	 */
+	private LocalDate highlightedToday;
 
 	YearPanel(YearHistory history, Year year, CalendarLayoutSettingProvider calendarLayoutSettingProvider) {
 		super(new BorderLayout());
 		calendarPanel = calendarLayoutSettingProvider.getCalendarLayoutSetting().createButtonLayout(history, year);
-		calendarPanel.addHighlight(LocalDate.now());
+		highlightedToday = LocalDate.now();
+		calendarPanel.addHighlight(highlightedToday);
 		JScrollPane scrollableCalendarView = ScrollPanes.regular(calendarPanel.getView());
 		scrollableCalendarView.setBorder(BorderFactory.createEmptyBorder());
 		this.add(scrollableCalendarView, BorderLayout.CENTER);
 	}
 
-	void turnOnButton(LocalDate d) {
-		calendarPanel.turnOnButton(d);
+	/**
+	 * Show another year in this panel, reusing its calendar.
+	 */
+	void rebind(YearHistory history, Year year) {
+		calendarPanel.rebind(history, year);
+		highlightedToday = LocalDate.now();
+		calendarPanel.addHighlight(highlightedToday);
 	}
 
-	void turnOffButton(LocalDate d) {
-		calendarPanel.turnOffButton(d);
+	void updateButtons(Set<LocalDate> turnedOn, Set<LocalDate> turnedOff) {
+		calendarPanel.updateButtons(turnedOn, turnedOff);
 	}
 
 	/**
-	 * Update decorations (bells and whistles) of this panel, which may depend on current time.
+	 * Update decorations (bells and whistles) of this panel, which depend on the current date.
 	 */
-	void updateDecorations() {
-		LocalDate today = LocalDate.now();
-		LocalDate yesterday = today.minusDays(1);
+	void updateDecorations(LocalDate today) {
+		if (today.equals(highlightedToday)) {
+			return;
+		}
+		calendarPanel.removeHighlight(highlightedToday);
 		calendarPanel.addHighlight(today);
-		calendarPanel.removeHighlight(yesterday);
+		highlightedToday = today;
 	}
 }
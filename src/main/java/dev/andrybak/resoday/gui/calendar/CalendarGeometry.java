@@ -0,0 +1,212 @@
+package dev.andrybak.resoday.gui.calendar;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Positions of days and labels of one calendar year in a grid of cells. Sizes of the cells in pixels are up to the
+ * user of the geometry, see {@link PaintedCalendarPanel}.
+ * <p>
+ * Days are indexed by their {@linkplain LocalDate#getDayOfYear() day of year} minus one. Geometry depends only on
+ * whether the year is leap and on the day of week of January 1, so there are at most fourteen different geometries
+ * per layout. They are immutable, and are computed once and shared by all calendars.
+ */
+final class CalendarGeometry {
+	/**
+	 * Width of gap columns and height of gap rows in pixels.
+	 */
+	static final int GAP_PIXELS = 20;
+	private static final Map<Key, CalendarGeometry> CACHE = new ConcurrentHashMap<>();
+	private static final int MONTH_GRID_WIDTH = 8; // 7 for each day of a week + 1 for gaps
+	private static final int MONTH_GRID_HEIGHT = 9; // 6==max number of rows + 1 month label + 1 week label + 1 gap
+
+	private final int columnCount;
+	private final int rowCount;
+	private final int[] dayColumns;
+	private final int[] dayRows;
+	/**
+	 * Index of day by {@code column * rowCount + row}, or {@code -1} for cells without days.
+	 */
+	private final int[] dayAt;
+	private final BitSet gapColumns;
+	private final BitSet gapRows;
+	private final List<Label> labels;
+	private final int[] gapColumnIndices;
+	private final int[] gapRowIndices;
+
+	private CalendarGeometry(int columnCount, int rowCount, int[] dayColumns, int[] dayRows, BitSet gapColumns,
+		BitSet gapRows, List<Label> labels)
+	{
+		this.columnCount = columnCount;
+		this.rowCount = rowCount;
+		this.dayColumns = dayColumns;
+		this.dayRows = dayRows;
+		this.gapColumns = gapColumns;
+		this.gapRows = gapRows;
+		this.labels = List.copyOf(labels);
+		this.gapColumnIndices = gapColumns.stream().toArray();
+		this.gapRowIndices = gapRows.stream().toArray();
+		this.dayAt = new int[columnCount * rowCount];
+		Arrays.fill(dayAt, -1);
+		for (int i = 0; i < dayColumns.length; i++) {
+			dayAt[dayColumns[i] * rowCount + dayRows[i]] = i;
+		}
+	}
+
+	/**
+	 * @see PaintedCalendarPanel#columns
+	 */
+	static CalendarGeometry columns(Year year) {
+		return CACHE.computeIfAbsent(Key.of(0, year), key -> computeColumns(year, CalendarLabels.of(key.locale())));
+	}
+
+	/**
+	 * "Classic" layouts of calendars. Days go horizontally left to right arranged per week in groups of seven, weeks
+	 * go top to bottom in four to six rows, depending on the month and on the day of the week of the first day of the
+	 * month.
+	 *
+	 * @param numberOfColumns number of months in one row
+	 * @see PaintedCalendarPanel#vertical
+	 * @see PaintedCalendarPanel#horizontal
+	 */
+	static CalendarGeometry classic(Year year, int numberOfColumns) {
+		return CACHE.computeIfAbsent(Key.of(numberOfColumns, year),
+			key -> computeClassic(year, numberOfColumns, CalendarLabels.of(key.locale())));
+	}
+
+	private static CalendarGeometry computeColumns(Year year, CalendarLabels calendarLabels) {
+		List<Label> labels = new ArrayList<>();
+		for (Month m : Month.values()) {
+			labels.add(new Label(calendarLabels.monthAbbreviation(m), m.getValue() - 1, 0, 1));
+		}
+		int[] dayColumns = new int[year.length()];
+		int[] dayRows = new int[year.length()];
+		for (int i = 0; i < year.length(); i++) {
+			LocalDate d = year.atDay(i + 1);
+			dayColumns[i] = d.getMonthValue() - 1;
+			dayRows[i] = d.getDayOfMonth();
+		}
+		return new CalendarGeometry(12, 32, dayColumns, dayRows, new BitSet(), new BitSet(), labels);
+	}
+
+	private static CalendarGeometry computeClassic(Year year, int numberOfColumns, CalendarLabels calendarLabels) {
+		if (numberOfColumns < 2 || numberOfColumns > 6) {
+			/* The way gaps are calculated, classic layouts cannot be 1×12 or 12×1. */
+			throw new IllegalArgumentException("numberOfColumns should be in [2-6] range. Got: " + numberOfColumns);
+		}
+		int numberOfRows = 12 / numberOfColumns;
+		BitSet gapColumns = new BitSet();
+		for (int c = 1; c < numberOfColumns; c++) {
+			gapColumns.set(c * MONTH_GRID_WIDTH - 1);
+		}
+		BitSet gapRows = new BitSet();
+		for (int r = 1; r < numberOfRows; r++) {
+			gapRows.set(r * MONTH_GRID_HEIGHT - 1);
+		}
+		List<Label> labels = new ArrayList<>();
+		for (Month m : Month.values()) {
+			int left = ((m.getValue() - 1) % numberOfColumns) * MONTH_GRID_WIDTH;
+			int top = ((m.getValue() - 1) / numberOfColumns) * MONTH_GRID_HEIGHT;
+			labels.add(new Label(calendarLabels.monthName(m), left, top, 7));
+			for (DayOfWeek dow : DayOfWeek.values()) {
+				labels.add(new Label(calendarLabels.dayOfWeekName(dow), left + dow.getValue() - 1, top + 1, 1));
+			}
+		}
+		int[] dayColumns = new int[year.length()];
+		int[] dayRows = new int[year.length()];
+		for (int i = 0; i < year.length(); i++) {
+			LocalDate d = year.atDay(i + 1);
+			int monthIndex = d.getMonthValue() - 1;
+			LocalDate monthStart = d.withDayOfMonth(1);
+			LocalDate firstRowMonday = monthStart.minusDays(monthStart.getDayOfWeek().getValue() - 1);
+			int daysSinceFirstMonday = (int)firstRowMonday.until(d, ChronoUnit.DAYS);
+			dayColumns[i] = (monthIndex % numberOfColumns) * MONTH_GRID_WIDTH + d.getDayOfWeek().getValue() - 1;
+			// +2 == one for month label, one for week labels
+			dayRows[i] = (monthIndex / numberOfColumns) * MONTH_GRID_HEIGHT + daysSinceFirstMonday / 7 + 2;
+		}
+		return new CalendarGeometry(numberOfColumns * MONTH_GRID_WIDTH - 1, numberOfRows * MONTH_GRID_HEIGHT - 1,
+			dayColumns, dayRows, gapColumns, gapRows, labels);
+	}
+
+	int getColumnCount() {
+		return columnCount;
+	}
+
+	int getRowCount() {
+		return rowCount;
+	}
+
+	int getDayCount() {
+		return dayColumns.length;
+	}
+
+	int getDayColumn(int day) {
+		return dayColumns[day];
+	}
+
+	int getDayRow(int day) {
+		return dayRows[day];
+	}
+
+	/**
+	 * @return index of the day in the given cell, or {@code -1}, if there is no day in the cell
+	 */
+	int getDayAt(int column, int row) {
+		if (column < 0 || column >= columnCount || row < 0 || row >= rowCount) {
+			return -1;
+		}
+		return dayAt[column * rowCount + row];
+	}
+
+	boolean isGapColumn(int column) {
+		return gapColumns.get(column);
+	}
+
+	boolean isGapRow(int row) {
+		return gapRows.get(row);
+	}
+
+	/**
+	 * @return indices of gap columns in ascending order
+	 */
+	int[] getGapColumns() {
+		return gapColumnIndices.clone();
+	}
+
+	/**
+	 * @return indices of gap rows in ascending order
+	 */
+	int[] getGapRows() {
+		return gapRowIndices.clone();
+	}
+
+	List<Label> getLabels() {
+		return labels;
+	}
+
+	/**
+	 * @param span number of columns, along which the label is centered
+	 */
+	record Label(String text, int column, int row, int span) {
+	}
+
+	/**
+	 * @param numberOfColumns number of months in one row of a classic layout, or zero for the columns layout
+	 * @param locale locale of the labels
+	 */
+	private record Key(int numberOfColumns, boolean leap, DayOfWeek firstDayOfWeek, Locale locale) {
+		static Key of(int numberOfColumns, Year year) {
+			return new Key(numberOfColumns, year.isLeap(), year.atDay(1).getDayOfWeek(), Locale.getDefault());
+		}
+	}
+}
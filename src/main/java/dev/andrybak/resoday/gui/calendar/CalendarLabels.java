@@ -0,0 +1,80 @@
+package dev.andrybak.resoday.gui.calendar;
+
+import java.awt.Font;
+import java.time.DayOfWeek;
+import java.time.Month;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Texts and fonts of calendars. They are computed once per locale or per font, and are shared by all calendar panels,
+ * so that building of a calendar doesn't need any formatting or derivation of fonts.
+ */
+final class CalendarLabels {
+	private static final String[] DAYS_OF_MONTH = new String[31];
+	private static final Map<Locale, CalendarLabels> BY_LOCALE = new ConcurrentHashMap<>();
+	private static final Map<Font, Font> PLAIN_FONTS = new ConcurrentHashMap<>();
+	private static final Map<Font, Font> BOLD_FONTS = new ConcurrentHashMap<>();
+
+	static {
+		for (int i = 0; i < DAYS_OF_MONTH.length; i++) {
+			DAYS_OF_MONTH[i] = String.format("%02d", i + 1);
+		}
+	}
+
+	private final String[] monthNames = new String[12];
+	private final String[] monthAbbreviations = new String[12];
+	private final String[] dayOfWeekNames = new String[7];
+
+	private CalendarLabels(Locale locale) {
+		DateTimeFormatter monthNameFormatter = DateTimeFormatter.ofPattern("MMMM", locale);
+		DateTimeFormatter monthAbbreviationFormatter = DateTimeFormatter.ofPattern("MMM", locale);
+		for (Month m : Month.values()) {
+			monthNames[m.ordinal()] = monthNameFormatter.format(m);
+			monthAbbreviations[m.ordinal()] = monthAbbreviationFormatter.format(m);
+		}
+		for (DayOfWeek dow : DayOfWeek.values()) {
+			dayOfWeekNames[dow.ordinal()] = dow.getDisplayName(TextStyle.SHORT_STANDALONE, locale);
+		}
+	}
+
+	static CalendarLabels of(Locale locale) {
+		return BY_LOCALE.computeIfAbsent(locale, CalendarLabels::new);
+	}
+
+	/**
+	 * @return two-digit day of month, e.g. {@code "07"}
+	 */
+	static String dayOfMonth(int dayOfMonth) {
+		return DAYS_OF_MONTH[dayOfMonth - 1];
+	}
+
+	/**
+	 * @return given font without bold style
+	 */
+	static Font plain(Font font) {
+		return PLAIN_FONTS.computeIfAbsent(font, f -> f.isBold() ? f.deriveFont(f.getStyle() & ~Font.BOLD) : f);
+	}
+
+	/**
+	 * @return given font with bold style
+	 */
+	static Font bold(Font font) {
+		return BOLD_FONTS.computeIfAbsent(font, f -> f.isBold() ? f : f.deriveFont(f.getStyle() | Font.BOLD));
+	}
+
+	String monthName(Month m) {
+		return monthNames[m.ordinal()];
+	}
+
+	String monthAbbreviation(Month m) {
+		return monthAbbreviations[m.ordinal()];
+	}
+
+	String dayOfWeekName(DayOfWeek dow) {
+		return dayOfWeekNames[dow.ordinal()];
+	}
+}
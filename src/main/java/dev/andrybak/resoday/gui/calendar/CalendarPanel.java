@@ -1,7 +1,11 @@
 package dev.andrybak.resoday.gui.calendar;
 
+import dev.andrybak.resoday.YearHistory;
+
 import javax.swing.JComponent;
 import java.time.LocalDate;
+import java.time.Year;
+import java.util.Set;
 
 /**
  * A {@link JComponent} which has buttons or other components for each calendar year, which are toggleable between
@@ -23,6 +27,14 @@ public interface CalendarPanel {
 	 */
 	void turnOffButton(LocalDate d);
 
+	/**
+	 * Switch many buttons (or equivalent) at once. Implementations should repaint only once.
+	 */
+	default void updateButtons(Set<LocalDate> turnedOn, Set<LocalDate> turnedOff) {
+		turnedOn.forEach(this::turnOnButton);
+		turnedOff.forEach(this::turnOffButton);
+	}
+
 	/**
 	 * Highlight the given {@link LocalDate} visually. All buttons (or equivalent) should be without a highlight by
 	 * default. Optional.
@@ -36,4 +48,10 @@ public interface CalendarPanel {
 	 * @param d should be a date, which was previously passed to {@link #addHighlight(LocalDate)}
 	 */
 	void removeHighlight(LocalDate d);
+
+	/**
+	 * Show another year and/or history in this panel, reusing its components. States of all days are refreshed from
+	 * the history, and all highlights are removed.
+	 */
+	void rebind(YearHistory history, Year year);
 }
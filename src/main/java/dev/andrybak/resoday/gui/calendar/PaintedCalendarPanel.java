@@ -0,0 +1,560 @@
+package dev.andrybak.resoday.gui.calendar;
+
+import dev.andrybak.resoday.YearHistory;
+
+import javax.swing.AbstractAction;
+import javax.swing.InputMap;
+import javax.swing.JComponent;
+import javax.swing.JToggleButton;
+import javax.swing.KeyStroke;
+import javax.swing.UIManager;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Paints all days of a year in a single component, instead of creating a {@link JToggleButton} for each day.
+ * <p>
+ * Positions of days and labels are taken from a {@link CalendarGeometry}. Sizes of cells are calculated once, from
+ * the preferred size of a toggle button, so that days look like toggle buttons of the current look and feel. Days are
+ * toggled with the mouse, or with the keyboard: arrow keys move the focus between days, and space or enter toggle
+ * the focused day.
+ */
+public final class PaintedCalendarPanel extends JComponent implements CalendarPanel {
+	/**
+	 * @see #vertical(YearHistory, Year)
+	 */
+	static final int VERTICAL_NUMBER_OF_COLUMNS = 3;
+	/**
+	 * @see #horizontal(YearHistory, Year)
+	 */
+	static final int HORIZONTAL_NUMBER_OF_COLUMNS = 4;
+	private static final int LABEL_PADDING_PIXELS = 4;
+
+	private final Function<Year, CalendarGeometry> geometryFactory;
+	private YearHistory history;
+	private Year year;
+	private CalendarGeometry geometry;
+	private final BitSet turnedOn = new BitSet();
+	private final BitSet highlighted = new BitSet();
+	/**
+	 * Left edges of columns of {@link #geometry}, with the right edge of the last column at the end.
+	 */
+	private int[] columnX;
+	/**
+	 * Top edges of rows of {@link #geometry}, with the bottom edge of the last row at the end.
+	 */
+	private int[] rowY;
+	private Font dayFont;
+	private Font highlightedDayFont;
+	private Font labelFont;
+	private int cellWidth;
+	private int cellHeight;
+	private int labelHeight;
+	private int focusedDay;
+	/**
+	 * Day under a pressed mouse button, or {@code -1}.
+	 */
+	private int pressedDay = -1;
+
+	private PaintedCalendarPanel(YearHistory history, Year year, Function<Year, CalendarGeometry> geometryFactory) {
+		this.geometryFactory = geometryFactory;
+		bind(history, year);
+		setFocusable(true);
+		setOpaque(false);
+		computeMetrics();
+		installMouseHandling();
+		installKeyboardHandling();
+		addFocusListener(new FocusAdapter() {
+			@Override
+			public void focusGained(FocusEvent e) {
+				repaintDay(focusedDay);
+			}
+
+			@Override
+			public void focusLost(FocusEvent e) {
+				repaintDay(focusedDay);
+			}
+		});
+	}
+
+	/**
+	 * Months go left to right, days go top to bottom in long 28–31-days-long columns.
+	 * Corresponds to <a href="http://www.simonegiertz.com/every-day-calendar">Every Day Calendar</a> by
+	 * Simone Giertz shown in <a href="https://www.youtube.com/watch?v=Pm9CQn07OjU&t=4m26s">Veritasium video titled
+	 * <i>Why Most Resolutions Fail &amp; How To Succeed</i></a>.
+	 *
+	 * @see CalendarGeometry#columns(Year)
+	 */
+	public static PaintedCalendarPanel columns(YearHistory history, Year year) {
+		return new PaintedCalendarPanel(history, year, CalendarGeometry::columns);
+	}
+
+	/**
+	 * "Classic" vertical layout of calendars. Days go horizontally left to right, weeks go top to bottom.
+	 * <pre>
+	 *     January February March
+	 *     April   May      June
+	 *     July    August   September
+	 *     October November December
+	 * </pre>
+	 *
+	 * @see CalendarGeometry#classic(Year, int)
+	 */
+	public static PaintedCalendarPanel vertical(YearHistory history, Year year) {
+		return new PaintedCalendarPanel(history, year,
+			y -> CalendarGeometry.classic(y, VERTICAL_NUMBER_OF_COLUMNS));
+	}
+
+	/**
+	 * "Classic" horizontal layout of calendars. Days go horizontally left to right, weeks go top to bottom.
+	 * <pre>
+	 *     January   February March    April
+	 *     May       June     July     August
+	 *     September October  November December
+	 * </pre>
+	 *
+	 * @see CalendarGeometry#classic(Year, int)
+	 */
+	public static PaintedCalendarPanel horizontal(YearHistory history, Year year) {
+		return new PaintedCalendarPanel(history, year,
+			y -> CalendarGeometry.classic(y, HORIZONTAL_NUMBER_OF_COLUMNS));
+	}
+
+	@Override
+	public void updateUI() {
+		super.updateUI();
+		if (geometryFactory != null) { // fields aren't initialized yet, if called from a constructor of a superclass
+			computeMetrics();
+			revalidate();
+			repaint();
+		}
+	}
+
+	private void bind(YearHistory history, Year year) {
+		this.history = history;
+		this.year = year;
+		this.geometry = geometryFactory.apply(year);
+		turnedOn.clear();
+		turnedOn.or(history.getDaysOfYear(year));
+		highlighted.clear();
+		pressedDay = -1;
+		LocalDate today = LocalDate.now();
+		focusedDay = today.getYear() == year.getValue() ? today.getDayOfYear() - 1 : 0;
+	}
+
+	@Override
+	public void rebind(YearHistory history, Year year) {
+		bind(history, year);
+		computeEdges();
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Calculates sizes of cells from the current look and feel.
+	 */
+	private void computeMetrics() {
+		JToggleButton sample = new JToggleButton(CalendarLabels.dayOfMonth(31));
+		dayFont = CalendarLabels.plain(sample.getFont());
+		highlightedDayFont = CalendarLabels.bold(sample.getFont());
+		labelFont = UIManager.getFont("Label.font");
+		if (labelFont == null) {
+			labelFont = dayFont;
+		}
+		FontMetrics labelMetrics = getFontMetrics(labelFont);
+		cellWidth = sample.getPreferredSize().width;
+		cellHeight = sample.getPreferredSize().height;
+		labelHeight = labelMetrics.getHeight() + LABEL_PADDING_PIXELS;
+		for (CalendarGeometry.Label label : geometry.getLabels()) {
+			if (label.span() == 1) {
+				cellWidth = Math.max(cellWidth, labelMetrics.stringWidth(label.text()) + LABEL_PADDING_PIXELS);
+			}
+		}
+		computeEdges();
+	}
+
+	/**
+	 * Calculates positions of columns and rows of {@link #geometry} in pixels.
+	 */
+	private void computeEdges() {
+		int columnCount = geometry.getColumnCount();
+		int rowCount = geometry.getRowCount();
+		boolean[] rowHasDays = new boolean[rowCount];
+		boolean[] rowHasLabels = new boolean[rowCount];
+		for (int day = 0; day < geometry.getDayCount(); day++) {
+			rowHasDays[geometry.getDayRow(day)] = true;
+		}
+		for (CalendarGeometry.Label label : geometry.getLabels()) {
+			rowHasLabels[label.row()] = true;
+		}
+		columnX = new int[columnCount + 1];
+		for (int c = 0; c < columnCount; c++) {
+			columnX[c + 1] = columnX[c] + (geometry.isGapColumn(c) ? CalendarGeometry.GAP_PIXELS : cellWidth);
+		}
+		rowY = new int[rowCount + 1];
+		for (int r = 0; r < rowCount; r++) {
+			final int height;
+			if (geometry.isGapRow(r)) {
+				height = CalendarGeometry.GAP_PIXELS;
+			} else if (rowHasDays[r]) {
+				height = cellHeight;
+			} else if (rowHasLabels[r]) {
+				height = labelHeight;
+			} else {
+				height = 0; // same as an empty row in GridBagLayout
+			}
+			rowY[r + 1] = rowY[r] + height;
+		}
+	}
+
+	private void installMouseHandling() {
+		MouseAdapter mouseAdapter = new MouseAdapter() {
+			@Override
+			public void mousePressed(MouseEvent e) {
+				if (e.getButton() != MouseEvent.BUTTON1) {
+					return;
+				}
+				requestFocusInWindow();
+				int day = dayAt(e.getX(), e.getY());
+				if (day < 0) {
+					return;
+				}
+				moveFocus(day);
+				pressedDay = day;
+				repaintDay(day);
+			}
+
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				if (pressedDay < 0) {
+					return;
+				}
+				int day = pressedDay;
+				pressedDay = -1;
+				repaintDay(day);
+				if (e.getButton() == MouseEvent.BUTTON1 && dayAt(e.getX(), e.getY()) == day) {
+					toggle(day);
+				}
+			}
+		};
+		addMouseListener(mouseAdapter);
+	}
+
+	private void installKeyboardHandling() {
+		InputMap inputMap = getInputMap(WHEN_FOCUSED);
+		inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, 0), "moveLeft");
+		inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, 0), "moveRight");
+		inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "moveUp");
+		inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "moveDown");
+		inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_SPACE, 0), "toggle");
+		inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "toggle");
+		getActionMap().put("moveLeft", new MoveFocusAction(-1, 0));
+		getActionMap().put("moveRight", new MoveFocusAction(1, 0));
+		getActionMap().put("moveUp", new MoveFocusAction(0, -1));
+		getActionMap().put("moveDown", new MoveFocusAction(0, 1));
+		getActionMap().put("toggle", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				toggle(focusedDay);
+			}
+		});
+	}
+
+	/**
+	 * Only changes the history. The new state of the day is painted, when it comes back from the listeners of the
+	 * history, same as changes from other sources.
+	 */
+	private void toggle(int day) {
+		LocalDate d = year.atDay(day + 1);
+		if (history.isTurnedOn(d)) {
+			history.turnOff(d);
+		} else {
+			history.turnOn(d);
+		}
+	}
+
+	private void moveFocus(int day) {
+		int previous = focusedDay;
+		focusedDay = day;
+		repaintDay(previous);
+		repaintDay(day);
+		scrollRectToVisible(getDayBounds(day));
+	}
+
+	/**
+	 * @return top left corner of the grid, which is centered in the component, same as with {@code GridBagLayout}
+	 */
+	private int originX() {
+		Insets insets = getInsets();
+		int available = getWidth() - insets.left - insets.right;
+		return insets.left + Math.max(0, (available - columnX[columnX.length - 1]) / 2);
+	}
+
+	private int originY() {
+		Insets insets = getInsets();
+		int available = getHeight() - insets.top - insets.bottom;
+		return insets.top + Math.max(0, (available - rowY[rowY.length - 1]) / 2);
+	}
+
+	/**
+	 * @return index of the day at the given point, or {@code -1}
+	 */
+	private int dayAt(int x, int y) {
+		int column = findInterval(columnX, x - originX());
+		int row = findInterval(rowY, y - originY());
+		return geometry.getDayAt(column, row);
+	}
+
+	/**
+	 * @return index {@code i} such that {@code edges[i] <= value < edges[i + 1]}, or {@code -1}
+	 */
+	private static int findInterval(int[] edges, int value) {
+		if (value < edges[0] || value >= edges[edges.length - 1]) {
+			return -1;
+		}
+		int i = Arrays.binarySearch(edges, value);
+		if (i < 0) {
+			return -i - 2;
+		}
+		// skip empty intervals
+		while (i + 1 < edges.length && edges[i + 1] == value) {
+			i++;
+		}
+		return i;
+	}
+
+	private Rectangle getDayBounds(int day) {
+		int column = geometry.getDayColumn(day);
+		int row = geometry.getDayRow(day);
+		return new Rectangle(originX() + columnX[column], originY() + rowY[row],
+			columnX[column + 1] - columnX[column], rowY[row + 1] - rowY[row]);
+	}
+
+	private void repaintDay(int day) {
+		if (day >= 0 && day < geometry.getDayCount()) {
+			repaint(getDayBounds(day));
+		}
+	}
+
+	private void setTurnedOn(int day, boolean on) {
+		if (turnedOn.get(day) != on) {
+			turnedOn.set(day, on);
+			repaintDay(day);
+		}
+	}
+
+	/**
+	 * @return index of the given date in this calendar, or {@code -1}, if the date is from another year
+	 */
+	private int toDay(LocalDate d) {
+		if (d.getYear() != year.getValue()) {
+			return -1;
+		}
+		return d.getDayOfYear() - 1;
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		if (isPreferredSizeSet()) {
+			return super.getPreferredSize();
+		}
+		Insets insets = getInsets();
+		return new Dimension(columnX[columnX.length - 1] + insets.left + insets.right,
+			rowY[rowY.length - 1] + insets.top + insets.bottom);
+	}
+
+	@Override
+	public Dimension getMinimumSize() {
+		if (isMinimumSizeSet()) {
+			return super.getMinimumSize();
+		}
+		return getPreferredSize();
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		Graphics2D g2 = (Graphics2D)g.create();
+		try {
+			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			Rectangle clip = g2.getClipBounds();
+			paintLabels(g2, clip);
+			paintDays(g2, clip);
+		} finally {
+			g2.dispose();
+		}
+	}
+
+	private void paintLabels(Graphics2D g, Rectangle clip) {
+		int x0 = originX();
+		int y0 = originY();
+		g.setFont(labelFont);
+		g.setColor(uiColor("Label.foreground", getForeground()));
+		FontMetrics fm = g.getFontMetrics();
+		for (CalendarGeometry.Label label : geometry.getLabels()) {
+			int left = x0 + columnX[label.column()];
+			int right = x0 + columnX[Math.min(label.column() + label.span(), columnX.length - 1)];
+			int top = y0 + rowY[label.row()];
+			int bottom = y0 + rowY[label.row() + 1];
+			if (clip != null && !clip.intersects(left, top, right - left, bottom - top)) {
+				continue;
+			}
+			int textX = left + (right - left - fm.stringWidth(label.text())) / 2;
+			int textY = top + (bottom - top - fm.getHeight()) / 2 + fm.getAscent();
+			g.drawString(label.text(), textX, textY);
+		}
+	}
+
+	private void paintDays(Graphics2D g, Rectangle clip) {
+		Color background = uiColor("ToggleButton.background", getBackground());
+		Color selectedBackground = uiColor("ToggleButton.select", background.darker());
+		Color foreground = uiColor("ToggleButton.foreground", getForeground());
+		Color border = uiColor("Button.shadow", Color.GRAY);
+		Color focus = uiColor("Button.focus", foreground);
+		int arc = 6;
+		for (int day = 0; day < geometry.getDayCount(); day++) {
+			Rectangle r = getDayBounds(day);
+			if (clip != null && !clip.intersects(r)) {
+				continue;
+			}
+			boolean selected = turnedOn.get(day) != (day == pressedDay);
+			g.setColor(selected ? selectedBackground : background);
+			g.fillRoundRect(r.x + 1, r.y + 1, r.width - 2, r.height - 2, arc, arc);
+			g.setColor(border);
+			g.drawRoundRect(r.x + 1, r.y + 1, r.width - 3, r.height - 3, arc, arc);
+			if (day == focusedDay && hasFocus()) {
+				g.setColor(focus);
+				g.drawRoundRect(r.x + 3, r.y + 3, r.width - 7, r.height - 7, arc, arc);
+			}
+			g.setFont(highlighted.get(day) ? highlightedDayFont : dayFont);
+			g.setColor(foreground);
+			FontMetrics fm = g.getFontMetrics();
+			String text = CalendarLabels.dayOfMonth(year.atDay(day + 1).getDayOfMonth());
+			g.drawString(text, r.x + (r.width - fm.stringWidth(text)) / 2,
+				r.y + (r.height - fm.getHeight()) / 2 + fm.getAscent());
+		}
+	}
+
+	private static Color uiColor(String key, Color fallback) {
+		Color c = UIManager.getColor(key);
+		return c != null ? c : fallback;
+	}
+
+	@Override
+	public JComponent getView() {
+		return this;
+	}
+
+	@Override
+	public void turnOnButton(LocalDate d) {
+		int day = toDay(d);
+		if (day >= 0) {
+			setTurnedOn(day, true);
+		}
+	}
+
+	@Override
+	public void turnOffButton(LocalDate d) {
+		int day = toDay(d);
+		if (day >= 0) {
+			setTurnedOn(day, false);
+		}
+	}
+
+	/**
+	 * Repaints the union of bounds of all changed days at once.
+	 */
+	@Override
+	public void updateButtons(Set<LocalDate> turnedOn, Set<LocalDate> turnedOff) {
+		Rectangle dirty = updateDays(turnedOn, true, null);
+		dirty = updateDays(turnedOff, false, dirty);
+		if (dirty != null) {
+			repaint(dirty);
+		}
+	}
+
+	/**
+	 * @param dirty region, which needs repainting, or {@code null}
+	 * @return {@code dirty} extended by the days, which have changed
+	 */
+	private Rectangle updateDays(Set<LocalDate> dates, boolean on, Rectangle dirty) {
+		for (LocalDate d : dates) {
+			int day = toDay(d);
+			if (day < 0 || turnedOn.get(day) == on) {
+				continue;
+			}
+			turnedOn.set(day, on);
+			if (dirty == null) {
+				dirty = getDayBounds(day);
+			} else {
+				dirty.add(getDayBounds(day));
+			}
+		}
+		return dirty;
+	}
+
+	@Override
+	public void addHighlight(LocalDate d) {
+		int day = toDay(d);
+		if (day >= 0 && !highlighted.get(day)) {
+			highlighted.set(day);
+			repaintDay(day);
+		}
+	}
+
+	@Override
+	public void removeHighlight(LocalDate d) {
+		int day = toDay(d);
+		if (day >= 0 && highlighted.get(day)) {
+			highlighted.clear(day);
+			repaintDay(day);
+		}
+	}
+
+	/**
+	 * Moves the focus to the nearest day in the given direction of the grid, skipping labels and gaps.
+	 */
+	private final class MoveFocusAction extends AbstractAction {
+		private final int dx;
+		private final int dy;
+
+		private MoveFocusAction(int dx, int dy) {
+			this.dx = dx;
+			this.dy = dy;
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			int column = geometry.getDayColumn(focusedDay) + dx;
+			int row = geometry.getDayRow(focusedDay) + dy;
+			while (column >= 0 && column < geometry.getColumnCount() && row >= 0 && row < geometry.getRowCount()) {
+				int day = geometry.getDayAt(column, row);
+				if (day >= 0) {
+					moveFocus(day);
+					return;
+				}
+				column += dx;
+				row += dy;
+			}
+		}
+	}
+}
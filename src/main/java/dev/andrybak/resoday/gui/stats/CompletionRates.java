@@ -0,0 +1,71 @@
+package dev.andrybak.resoday.gui.stats;
+
+import dev.andrybak.resoday.Rollups;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Shares of days, on which a habit was done, by month, by day of week, and by year. Only days between the first and
+ * the last date of the habit are taken into account.
+ *
+ * @param byMonth rates indexed by {@link Month#ordinal()}
+ * @param byDayOfWeek rates indexed by {@link DayOfWeek#ordinal()}
+ * @param byYear rates of years, which have at least one date
+ */
+record CompletionRates(double[] byMonth, double[] byDayOfWeek, NavigableMap<Integer, Double> byYear) {
+	/**
+	 * Takes time proportional to the number of years between {@code first} and {@code last}, not to the number of
+	 * dates.
+	 *
+	 * @param first the earliest date of the habit
+	 * @param last the latest date of the habit
+	 */
+	static CompletionRates of(Rollups rollups, LocalDate first, LocalDate last) {
+		long[] daysByMonth = new long[Month.values().length];
+		NavigableMap<Integer, Double> byYear = new TreeMap<>();
+		for (int year = first.getYear(); year <= last.getYear(); year++) {
+			for (Month m : Month.values()) {
+				LocalDate monthStart = Year.of(year).atMonth(m).atDay(1);
+				LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
+				daysByMonth[m.ordinal()] += overlap(monthStart, monthEnd, first, last);
+			}
+		}
+		for (Map.Entry<Integer, Integer> e : rollups.getCountsByYear().entrySet()) {
+			Year year = Year.of(e.getKey());
+			long days = overlap(year.atDay(1), year.atDay(year.length()), first, last);
+			byYear.put(e.getKey(), rate(e.getValue(), days));
+		}
+		double[] byMonth = new double[daysByMonth.length];
+		for (Month m : Month.values()) {
+			byMonth[m.ordinal()] = rate(rollups.getCount(m), daysByMonth[m.ordinal()]);
+		}
+		long totalDays = ChronoUnit.DAYS.between(first, last) + 1;
+		double[] byDayOfWeek = new double[DayOfWeek.values().length];
+		for (DayOfWeek dow : DayOfWeek.values()) {
+			// full weeks, plus one day for each of the remaining days, starting with the day of week of the first date
+			long extra = Math.floorMod(dow.getValue() - first.getDayOfWeek().getValue(), 7) < totalDays % 7 ? 1 : 0;
+			byDayOfWeek[dow.ordinal()] = rate(rollups.getCount(dow), totalDays / 7 + extra);
+		}
+		return new CompletionRates(byMonth, byDayOfWeek, byYear);
+	}
+
+	/**
+	 * @return number of days in both ranges, all bounds are inclusive
+	 */
+	private static long overlap(LocalDate from1, LocalDate to1, LocalDate from2, LocalDate to2) {
+		LocalDate from = from1.isAfter(from2) ? from1 : from2;
+		LocalDate to = to1.isBefore(to2) ? to1 : to2;
+		return from.isAfter(to) ? 0 : ChronoUnit.DAYS.between(from, to) + 1;
+	}
+
+	private static double rate(int count, long days) {
+		return days == 0 ? 0.0 : (double)count / days;
+	}
+}
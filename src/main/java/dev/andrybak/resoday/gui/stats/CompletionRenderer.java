@@ -0,0 +1,46 @@
+package dev.andrybak.resoday.gui.stats;
+
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.UIManager;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+
+/**
+ * Shows a completion rate from {@code 0.0} to {@code 1.0} as a percentage over a proportional bar, so that a column
+ * of a table reads as a histogram. Other values are shown as is.
+ */
+final class CompletionRenderer extends DefaultTableCellRenderer {
+	private double rate = 0.0;
+
+	CompletionRenderer() {
+		setHorizontalAlignment(SwingConstants.RIGHT);
+	}
+
+	@Override
+	public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus,
+		int row, int column)
+	{
+		if (value instanceof Double d) {
+			rate = d;
+			value = Math.round(d * 100) + "%";
+		} else {
+			rate = 0.0;
+		}
+		return super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		g.setColor(getBackground());
+		g.fillRect(0, 0, getWidth(), getHeight());
+		if (rate > 0.0) {
+			Color barColor = UIManager.getColor("ProgressBar.foreground");
+			g.setColor(barColor != null ? barColor : Color.GREEN.darker());
+			g.fillRect(0, 1, (int)Math.round(getWidth() * Math.min(rate, 1.0)), getHeight() - 2);
+		}
+		getUI().paint(g, this); // only the text, background has been painted above
+	}
+}
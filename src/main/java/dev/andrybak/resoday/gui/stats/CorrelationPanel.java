@@ -0,0 +1,167 @@
+package dev.andrybak.resoday.gui.stats;
+
+import dev.andrybak.resoday.Correlations;
+import dev.andrybak.resoday.DateSet;
+import dev.andrybak.resoday.gui.util.ScrollPanes;
+
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Matrix of {@link Correlations} of all habits over a range of dates, which the user can choose.
+ * <p>
+ * Dates of the habits are obtained in the background. Once all of them have arrived, the matrix is computed on the
+ * EDT: bitmap intersections are fast enough even for many habits and many years.
+ */
+final class CorrelationPanel {
+	private final List<HabitSnapshot> habits;
+	private final DateSet[] dates;
+	private int remaining;
+	private final JComboBox<Range> rangeComboBox = new JComboBox<>(Range.values());
+	private final JComboBox<Coefficient> coefficientComboBox = new JComboBox<>(Coefficient.values());
+	private final DefaultTableModel tableModel = new DefaultTableModel();
+
+	private CorrelationPanel(List<HabitSnapshot> habits) {
+		this.habits = habits;
+		this.dates = new DateSet[habits.size()];
+		this.remaining = habits.size();
+	}
+
+	static JComponent create(JDialog d, List<HabitSnapshot> habits) {
+		CorrelationPanel correlationPanel = new CorrelationPanel(habits);
+		JPanel view = new JPanel(new BorderLayout());
+		JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEADING));
+		controls.add(new JLabel("Range:"));
+		controls.add(correlationPanel.rangeComboBox);
+		controls.add(new JLabel("Coefficient:"));
+		controls.add(correlationPanel.coefficientComboBox);
+		view.add(controls, BorderLayout.NORTH);
+		view.add(ScrollPanes.regular(new JTable(correlationPanel.tableModel)), BorderLayout.CENTER);
+
+		correlationPanel.rangeComboBox.addActionListener(ignored -> correlationPanel.update());
+		correlationPanel.coefficientComboBox.addActionListener(ignored -> correlationPanel.update());
+		List<Supplier<DateSet>> snapshots = habits.stream().map(HabitSnapshot::dates).toList();
+		StatisticsService<DateSet> service = StatisticsService.start(snapshots, Function.identity(),
+			(i, habitDates) -> {
+				correlationPanel.dates[i] = habitDates;
+				correlationPanel.remaining--;
+				correlationPanel.update();
+			});
+		StatisticsDialog.cancelOnClose(d, service);
+		correlationPanel.update();
+		return view;
+	}
+
+	private void update() {
+		List<Object> columns = new ArrayList<>(List.of("Name     "));
+		habits.forEach(h -> columns.add(h.name()));
+		if (remaining > 0) {
+			Object[][] rows = new Object[habits.size()][];
+			for (int i = 0; i < rows.length; i++) {
+				rows[i] = StatisticsDialog.pendingRow(habits.get(i).name(), columns.size());
+			}
+			tableModel.setDataVector(rows, columns.toArray());
+			return;
+		}
+		LocalDate today = LocalDate.now();
+		Range range = getSelectedRange();
+		Correlations correlations = Correlations.compute(Arrays.asList(dates), range.getStart(today, habits),
+			range.getEnd(today, habits));
+		Coefficient coefficient = getSelectedCoefficient();
+		Object[][] rows = new Object[habits.size()][columns.size()];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i][0] = habits.get(i).name();
+			for (int j = 0; j < habits.size(); j++) {
+				double value = coefficient == Coefficient.PHI ? correlations.getPhi(i, j) :
+					correlations.getJaccard(i, j);
+				String formatted = Double.isNaN(value) ? "n/a" : String.format("%.2f", value);
+				rows[i][j + 1] = formatted + " (" + correlations.getCoOccurrences(i, j) + ")";
+			}
+		}
+		tableModel.setDataVector(rows, columns.toArray());
+	}
+
+	private Range getSelectedRange() {
+		return (Range)rangeComboBox.getSelectedItem();
+	}
+
+	private Coefficient getSelectedCoefficient() {
+		return (Coefficient)coefficientComboBox.getSelectedItem();
+	}
+
+	private enum Range {
+		LAST_YEAR("Last year", 1),
+		LAST_FIVE_YEARS("Last 5 years", 5),
+		LAST_TEN_YEARS("Last 10 years", 10),
+		ALL_TIME("All time", 0);
+
+		private final String text;
+		/**
+		 * Zero for no limit.
+		 */
+		private final int years;
+
+		Range(String text, int years) {
+			this.text = text;
+			this.years = years;
+		}
+
+		private LocalDate getStart(LocalDate today, List<HabitSnapshot> habits) {
+			if (years > 0) {
+				return today.minusYears(years).plusDays(1);
+			}
+			return habits.stream()
+				.map(h -> h.summary().getFirst().orElse(today))
+				.min(LocalDate::compareTo)
+				.orElse(today);
+		}
+
+		/**
+		 * Habits can have dates in the future, which are included in the unlimited range.
+		 */
+		private LocalDate getEnd(LocalDate today, List<HabitSnapshot> habits) {
+			if (years > 0) {
+				return today;
+			}
+			return habits.stream()
+				.map(h -> h.summary().getLast().orElse(today))
+				.max(LocalDate::compareTo)
+				.filter(last -> last.isAfter(today))
+				.orElse(today);
+		}
+
+		@Override
+		public String toString() {
+			return text;
+		}
+	}
+
+	private enum Coefficient {
+		PHI("Phi"),
+		JACCARD("Jaccard");
+
+		private final String text;
+
+		Coefficient(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public String toString() {
+			return text;
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package dev.andrybak.resoday.gui.stats;
+
+import dev.andrybak.resoday.DateSet;
+import dev.andrybak.resoday.HabitStatistics;
+import dev.andrybak.resoday.Rollups;
+import dev.andrybak.resoday.YearHistory;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+/**
+ * Data of one habit for computing of statistics, which can be used from any thread.
+ *
+ * @param dates see {@link YearHistory#snapshotDates()}. Dates are obtained at most once, even if several statistics
+ * need them.
+ * @param rollups see {@link YearHistory#snapshotRollups(Supplier)}. Built from {@code dates}, if they haven't been read
+ * yet.
+ */
+record HabitSnapshot(String name, HabitStatistics.Summary summary, Supplier<DateSet> dates, Supplier<Rollups> rollups) {
+	/**
+	 * Must be called from the EDT.
+	 */
+	static HabitSnapshot of(YearHistory history) {
+		Supplier<DateSet> dates = once(history.snapshotDates());
+		return new HabitSnapshot(history.getName(), history.getStatistics().getSummary(), dates,
+			history.snapshotRollups(dates));
+	}
+
+	/**
+	 * @return supplier, which calls the given supplier on first use only, and can be used from several threads at once
+	 */
+	private static <T> Supplier<T> once(Supplier<T> supplier) {
+		FutureTask<T> task = new FutureTask<>(supplier::get);
+		return () -> {
+			task.run(); // does nothing, if the task has already been run
+			try {
+				return task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		};
+	}
+}
@@ -1,21 +1,42 @@
 package dev.andrybak.resoday.gui.stats;
 
+import dev.andrybak.resoday.DateSet;
+import dev.andrybak.resoday.HabitStatistics;
+import dev.andrybak.resoday.Rollups;
+import dev.andrybak.resoday.Streaks;
+import dev.andrybak.resoday.YearHistory;
 import dev.andrybak.resoday.gui.Histories;
 import dev.andrybak.resoday.gui.util.Dialogs;
 import dev.andrybak.resoday.gui.util.ScrollPanes;
 
 import javax.swing.JDialog;
 import javax.swing.JPanel;
+import javax.swing.JTabbedPane;
 import javax.swing.JTable;
 import javax.swing.WindowConstants;
 import javax.swing.table.DefaultTableModel;
 import java.awt.BorderLayout;
 import java.awt.Dialog;
 import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.util.NavigableSet;
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class StatisticsDialog {
+	static final String PENDING = "...";
+	private static final int CURRENT_STREAK_COLUMN = 4;
+	private static final int LONGEST_STREAK_COLUMN = 5;
+
 	private StatisticsDialog() {
 		throw new UnsupportedOperationException();
 	}
@@ -27,8 +48,18 @@ public class StatisticsDialog {
 		Dialogs.setUpEscapeKeyClosing(d, content);
 
 		{
-			JTable table = createStatsTable(histories);
-			content.add(ScrollPanes.regular(table), BorderLayout.CENTER);
+			List<HabitSnapshot> habits = new ArrayList<>();
+			histories.forEachHistory(h -> {
+				// summary is kept up-to-date by the history, and doesn't need reading of the habit file
+				if (h.getStatistics().getSummary().count() > 0) {
+					habits.add(HabitSnapshot.of(h));
+				}
+			});
+			JTabbedPane tabs = new JTabbedPane();
+			tabs.addTab("Summary", ScrollPanes.regular(createStatsTable(d, habits)));
+			addCompletionTabs(d, tabs, habits);
+			tabs.addTab("Correlations", CorrelationPanel.create(d, habits));
+			content.add(tabs, BorderLayout.CENTER);
 		}
 
 		d.setContentPane(content);
@@ -38,33 +69,129 @@ public class StatisticsDialog {
 		return d;
 	}
 
-	private static JTable createStatsTable(Histories histories) {
+	/**
+	 * Summaries are shown right away. Streaks are computed in the background, and appear in the table as they
+	 * become ready.
+	 */
+	private static JTable createStatsTable(JDialog d, List<HabitSnapshot> habits) {
 		DefaultTableModel tableModel = new DefaultTableModel(
 			new Object[]{
 				"Name     ",
 				"# of days",
 				"Oldest   ",
 				"Newest   ",
+				"Current streak",
+				"Longest streak",
 			},
 			0
 		);
-		histories.forEachHistory(h -> {
-			NavigableSet<LocalDate> ns = h.toNavigableSet();
-			if (ns.isEmpty()) {
-				return;
-			}
+		List<Supplier<DateSet>> snapshots = new ArrayList<>();
+		for (HabitSnapshot h : habits) {
+			HabitStatistics.Summary statistics = h.summary();
 			tableModel.addRow(new Object[]{
-				h.getName(),
-				ns.size(),
-				ns.first(),
-				ns.last()
+				h.name(),
+				statistics.count(),
+				statistics.getFirst().orElseThrow(),
+				statistics.getLast().orElseThrow(),
+				PENDING,
+				PENDING
 			});
+			snapshots.add(h.dates());
+		}
+		LocalDate today = LocalDate.now();
+		StatisticsService<StreakLengths> service = StatisticsService.start(snapshots, dates -> {
+			Streaks streaks = Streaks.of(dates);
+			return new StreakLengths(streaks.getCurrent(today), streaks.getLongest());
+		}, (row, streakLengths) -> {
+			tableModel.setValueAt(streakLengths.current(), row, CURRENT_STREAK_COLUMN);
+			tableModel.setValueAt(streakLengths.longest(), row, LONGEST_STREAK_COLUMN);
 		});
+		cancelOnClose(d, service);
 		return new JTable(tableModel);
 	}
 
+	/**
+	 * Adds histograms of completion rates by month, by day of week, and by year. They are computed in the background
+	 * from {@linkplain YearHistory#snapshotRollups(Supplier) rollups} of the habits.
+	 */
+	private static void addCompletionTabs(JDialog d, JTabbedPane tabs, List<HabitSnapshot> habits) {
+		List<String> monthColumns = new ArrayList<>(List.of("Name     "));
+		for (Month m : Month.values()) {
+			monthColumns.add(m.getDisplayName(TextStyle.SHORT_STANDALONE, Locale.getDefault()));
+		}
+		List<String> dayOfWeekColumns = new ArrayList<>(List.of("Name     "));
+		for (DayOfWeek dow : DayOfWeek.values()) {
+			dayOfWeekColumns.add(dow.getDisplayName(TextStyle.SHORT_STANDALONE, Locale.getDefault()));
+		}
+		DefaultTableModel byMonthModel = new DefaultTableModel(monthColumns.toArray(), 0);
+		DefaultTableModel byDayOfWeekModel = new DefaultTableModel(dayOfWeekColumns.toArray(), 0);
+		DefaultTableModel byYearModel = new DefaultTableModel(new Object[]{"Name     ", "Year", "Completion"}, 0);
+		List<String> names = new ArrayList<>();
+		List<Supplier<CompletionRates>> snapshots = new ArrayList<>();
+		for (HabitSnapshot h : habits) {
+			names.add(h.name());
+			Supplier<Rollups> rollups = h.rollups();
+			LocalDate first = h.summary().getFirst().orElseThrow();
+			LocalDate last = h.summary().getLast().orElseThrow();
+			snapshots.add(() -> CompletionRates.of(rollups.get(), first, last));
+			byMonthModel.addRow(pendingRow(h.name(), monthColumns.size()));
+			byDayOfWeekModel.addRow(pendingRow(h.name(), dayOfWeekColumns.size()));
+		}
+		// rows of each habit in the "By year" table, so that they are kept in the order of habits
+		int[] byYearRowCounts = new int[habits.size()];
+		StatisticsService<CompletionRates> service = StatisticsService.start(snapshots, Function.identity(),
+			(row, rates) -> {
+				for (int i = 0; i < rates.byMonth().length; i++) {
+					byMonthModel.setValueAt(rates.byMonth()[i], row, i + 1);
+				}
+				for (int i = 0; i < rates.byDayOfWeek().length; i++) {
+					byDayOfWeekModel.setValueAt(rates.byDayOfWeek()[i], row, i + 1);
+				}
+				int byYearRow = Arrays.stream(byYearRowCounts, 0, row).sum();
+				for (Map.Entry<Integer, Double> e : rates.byYear().entrySet()) {
+					byYearModel.insertRow(byYearRow++, new Object[]{names.get(row), e.getKey(), e.getValue()});
+				}
+				byYearRowCounts[row] = rates.byYear().size();
+			});
+		cancelOnClose(d, service);
+		tabs.addTab("By month", ScrollPanes.regular(createCompletionTable(byMonthModel, 1)));
+		tabs.addTab("By day of week", ScrollPanes.regular(createCompletionTable(byDayOfWeekModel, 1)));
+		tabs.addTab("By year", ScrollPanes.regular(createCompletionTable(byYearModel, 2)));
+	}
+
+	static Object[] pendingRow(String name, int columnCount) {
+		Object[] row = new Object[columnCount];
+		Arrays.fill(row, PENDING);
+		row[0] = name;
+		return row;
+	}
+
+	/**
+	 * @param firstRateColumn index of the first column with completion rates. All columns after it have rates too.
+	 */
+	private static JTable createCompletionTable(DefaultTableModel model, int firstRateColumn) {
+		JTable table = new JTable(model);
+		CompletionRenderer renderer = new CompletionRenderer();
+		for (int i = firstRateColumn; i < table.getColumnCount(); i++) {
+			table.getColumnModel().getColumn(i).setCellRenderer(renderer);
+		}
+		return table;
+	}
+
+	static void cancelOnClose(JDialog d, StatisticsService<?> service) {
+		d.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				service.cancel();
+			}
+		});
+	}
+
 	public static void show(Window parent, Histories histories) {
 		JDialog d = create(parent, histories);
 		d.setVisible(true);
 	}
+
+	private record StreakLengths(int current, int longest) {
+	}
 }
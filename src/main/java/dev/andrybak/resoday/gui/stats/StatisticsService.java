@@ -0,0 +1,83 @@
+package dev.andrybak.resoday.gui.stats;
+
+import javax.swing.SwingUtilities;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Computes statistics of many habits in parallel, away from the EDT, from snapshots of their data, e.g.
+ * {@link dev.andrybak.resoday.YearHistory#snapshotDates()}. Results are delivered on the EDT one by one, as soon as
+ * they are ready.
+ *
+ * @param <R> type of the result for one habit
+ */
+final class StatisticsService<R> {
+	private final ForkJoinPool pool;
+	/**
+	 * Written on the EDT, read by the workers.
+	 */
+	private volatile boolean cancelled = false;
+
+	private StatisticsService(int parallelism) {
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Must be called from the EDT.
+	 *
+	 * @param snapshots data of each habit. Suppliers are called on worker threads.
+	 * @param computation what to compute for one habit. Is called on a worker thread.
+	 * @param consumer gets index of the habit in {@code snapshots} and its result. Is called on the EDT, only until
+	 * the computation is {@linkplain #cancel() cancelled}.
+	 */
+	static <S, R> StatisticsService<R> start(List<Supplier<S>> snapshots, Function<S, R> computation,
+		ResultConsumer<R> consumer)
+	{
+		int parallelism = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), snapshots.size()));
+		StatisticsService<R> service = new StatisticsService<>(parallelism);
+		for (int i = 0; i < snapshots.size(); i++) {
+			final int index = i; // for final inside lambdas
+			Supplier<S> snapshot = snapshots.get(i);
+			service.pool.execute(() -> {
+				if (service.cancelled) {
+					return;
+				}
+				R result;
+				try {
+					result = computation.apply(snapshot.get());
+				} catch (RuntimeException e) {
+					if (!service.cancelled) {
+						System.err.println("Could not compute statistics: " + e);
+						e.printStackTrace();
+					}
+					return;
+				}
+				SwingUtilities.invokeLater(() -> {
+					if (!service.cancelled) {
+						consumer.accept(index, result);
+					}
+				});
+			});
+		}
+		service.pool.shutdown(); // submitted tasks still run
+		return service;
+	}
+
+	/**
+	 * Stops the computation. Results, which haven't been delivered yet, are dropped. Must be called from the EDT.
+	 * <p>
+	 * Workers aren't interrupted: snapshots can be shared between several computations, see {@link HabitSnapshot},
+	 * and an interrupted read would fail all of them. Tasks, which haven't started yet, skip their work, and the pool
+	 * terminates as soon as the running ones are done.
+	 */
+	void cancel() {
+		cancelled = true;
+	}
+
+	@FunctionalInterface
+	interface ResultConsumer<R> {
+		void accept(int index, R result);
+	}
+}
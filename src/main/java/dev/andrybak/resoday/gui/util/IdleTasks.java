@@ -0,0 +1,57 @@
+package dev.andrybak.resoday.gui.util;
+
+import javax.swing.Timer;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Runs tasks on the EDT, one at a time, when there are no other events to dispatch. While the EDT is busy, tasks are
+ * postponed. Must be used only from the EDT.
+ */
+public final class IdleTasks {
+	private static final int BACK_OFF_MILLIS = 50;
+	private final Queue<Runnable> tasks = new ArrayDeque<>();
+	private final Timer timer;
+
+	public IdleTasks() {
+		timer = new Timer(BACK_OFF_MILLIS, ignored -> runNext());
+		timer.setRepeats(false);
+	}
+
+	private static boolean isEventQueueBusy() {
+		EventQueue eventQueue = Toolkit.getDefaultToolkit().getSystemEventQueue();
+		return eventQueue.peekEvent() != null;
+	}
+
+	public void submit(Runnable task) {
+		tasks.add(task);
+		if (!timer.isRunning()) {
+			timer.restart();
+		}
+	}
+
+	/**
+	 * Forgets all tasks, which haven't been run yet.
+	 */
+	public void cancelAll() {
+		tasks.clear();
+		timer.stop();
+	}
+
+	private void runNext() {
+		if (isEventQueueBusy()) {
+			timer.restart();
+			return;
+		}
+		Runnable task = tasks.poll();
+		if (task == null) {
+			return;
+		}
+		task.run();
+		if (!tasks.isEmpty()) {
+			timer.restart();
+		}
+	}
+}
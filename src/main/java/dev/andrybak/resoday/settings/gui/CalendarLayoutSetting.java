@@ -2,9 +2,7 @@ package dev.andrybak.resoday.settings.gui;
 
 import dev.andrybak.resoday.YearHistory;
 import dev.andrybak.resoday.gui.calendar.CalendarPanel;
-import dev.andrybak.resoday.gui.calendar.ColumnsCalendarPanel;
-import dev.andrybak.resoday.gui.calendar.HorizontalCalendarPanel;
-import dev.andrybak.resoday.gui.calendar.VerticalCalendarPanel;
+import dev.andrybak.resoday.gui.calendar.PaintedCalendarPanel;
 
 import java.time.Year;
 import java.util.Objects;
@@ -15,9 +13,9 @@ import java.util.function.BiFunction;
  * that have {@link HabitCalendarLayout#DEFAULT} set as their habit.
  */
 public enum CalendarLayoutSetting {
-	COLUMNS_SIMONE_GIERTZ("Columns", ColumnsCalendarPanel::new),
-	CLASSIC_VERTICAL("Vertical", VerticalCalendarPanel::new),
-	CLASSIC_HORIZONTAL("Horizontal", HorizontalCalendarPanel::new),
+	COLUMNS_SIMONE_GIERTZ("Columns", PaintedCalendarPanel::columns),
+	CLASSIC_VERTICAL("Vertical", PaintedCalendarPanel::vertical),
+	CLASSIC_HORIZONTAL("Horizontal", PaintedCalendarPanel::horizontal),
 	;
 
 	private final String guiName;
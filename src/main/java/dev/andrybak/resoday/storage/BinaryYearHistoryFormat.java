@@ -0,0 +1,184 @@
+package dev.andrybak.resoday.storage;
+
+import dev.andrybak.resoday.YearHistory;
+import dev.andrybak.resoday.settings.gui.HabitCalendarLayout;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary format of {@code .habit} files, version 3. All integers are unsigned
+ * <a href="https://protobuf.dev/programming-guides/encoding/#varints">varints</a>, unless noted otherwise.
+ * <pre>
+ *     magic       4 bytes: "RSDY"
+ *     version     varint, always 3
+ *     name        string
+ *     id          string
+ *     visibility  string, name of enum constant
+ *     layout      string, name of enum constant
+ *     count       number of dates
+ *     first       first epoch day, zigzag-encoded signed varint, only if count &gt; 0
+ *     deltas      count - 1 differences between consecutive sorted epoch days
+ * </pre>
+ * Strings are stored as varint {@code length + 1} followed by {@code length} bytes of UTF-8. Length {@code 0} means
+ * {@code null}.
+ */
+final class BinaryYearHistoryFormat {
+	static final int VERSION = 3;
+	private static final byte[] MAGIC = {'R', 'S', 'D', 'Y'};
+
+	private BinaryYearHistoryFormat() {
+		throw new UnsupportedOperationException();
+	}
+
+	static boolean hasMagic(byte[] head) {
+		return Arrays.equals(head, MAGIC);
+	}
+
+	/**
+	 * Doesn't change the position of the buffer.
+	 */
+	static boolean hasMagic(ByteBuffer contents) {
+		if (contents.remaining() < MAGIC.length) {
+			return false;
+		}
+		return contents.slice(contents.position(), MAGIC.length).equals(ByteBuffer.wrap(MAGIC));
+	}
+
+	static void write(SerializableYearHistory history, OutputStream out) throws IOException {
+		long[] epochDays = history.getDates().stream()
+			.mapToLong(LocalDate::toEpochDay)
+			.sorted()
+			.toArray();
+		out.write(MAGIC);
+		writeVarint(out, VERSION);
+		writeString(out, history.getName());
+		writeString(out, history.getId());
+		writeString(out, history.getVisibility().name());
+		writeString(out, history.getHabitCalendarLayout().name());
+		writeVarint(out, epochDays.length);
+		if (epochDays.length > 0) {
+			writeVarint(out, zigzag(epochDays[0]));
+			for (int i = 1; i < epochDays.length; i++) {
+				writeVarint(out, epochDays[i] - epochDays[i - 1]);
+			}
+		}
+	}
+
+	/**
+	 * @param buf contents of a habit file, starting with the magic bytes
+	 */
+	static SerializableYearHistory read(ByteBuffer buf, String fallbackName, String fallbackId) throws IOException {
+		try {
+			byte[] magic = new byte[MAGIC.length];
+			buf.get(magic);
+			if (!hasMagic(magic)) {
+				throw new IOException("Not a binary habit file");
+			}
+			long version = readVarint(buf);
+			if (version != VERSION) {
+				throw new IOException("Unknown binary SerializableYearHistory format version: " + version);
+			}
+			String name = readString(buf);
+			String id = readString(buf);
+			YearHistory.Visibility visibility = readEnum(buf, YearHistory.Visibility.class);
+			HabitCalendarLayout habitCalendarLayout = readEnum(buf, HabitCalendarLayout.class);
+			int count = Math.toIntExact(readVarint(buf));
+			if (count > buf.remaining()) {
+				/* Each date takes at least one byte. */
+				throw new IOException("Corrupted binary habit file: too many dates: " + count);
+			}
+			List<LocalDate> dates = new ArrayList<>(count);
+			if (count > 0) {
+				long epochDay = unzigzag(readVarint(buf));
+				dates.add(LocalDate.ofEpochDay(epochDay));
+				for (int i = 1; i < count; i++) {
+					epochDay += readVarint(buf);
+					dates.add(LocalDate.ofEpochDay(epochDay));
+				}
+			}
+			return new SerializableYearHistory(dates, name != null ? name : fallbackName,
+				id != null ? id : fallbackId, visibility, habitCalendarLayout);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("Unexpected end of binary habit file", e);
+		} catch (DateTimeException | ArithmeticException e) {
+			throw new IOException("Corrupted binary habit file", e);
+		}
+	}
+
+	private static long zigzag(long n) {
+		return (n << 1) ^ (n >> 63);
+	}
+
+	private static long unzigzag(long n) {
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	private static void writeVarint(OutputStream out, long n) throws IOException {
+		while ((n & ~0x7FL) != 0) {
+			out.write((int)((n & 0x7F) | 0x80));
+			n >>>= 7;
+		}
+		out.write((int)n);
+	}
+
+	private static long readVarint(ByteBuffer buf) throws IOException {
+		long result = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buf.get();
+			result |= (long)(b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private static void writeString(OutputStream out, String s) throws IOException {
+		if (s == null) {
+			writeVarint(out, 0);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		writeVarint(out, bytes.length + 1L);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buf) throws IOException {
+		int lengthPlusOne = Math.toIntExact(readVarint(buf));
+		if (lengthPlusOne == 0) {
+			return null;
+		}
+		ByteBuffer bytes = buf.slice(buf.position(), lengthPlusOne - 1);
+		buf.position(buf.position() + lengthPlusOne - 1);
+		try {
+			return StandardCharsets.UTF_8.newDecoder().decode(bytes).toString();
+		} catch (CharacterCodingException e) {
+			throw new IOException("Malformed string in binary habit file", e);
+		}
+	}
+
+	/**
+	 * @return {@code null} for unknown names, same as Gson does for JSON-based versions
+	 */
+	private static <E extends Enum<E>> E readEnum(ByteBuffer buf, Class<E> enumClass) throws IOException {
+		String name = readString(buf);
+		if (name == null) {
+			return null;
+		}
+		try {
+			return Enum.valueOf(enumClass, name);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package dev.andrybak.resoday.storage;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.util.Objects;
+
+/**
+ * Decodes characters straight from a {@link ByteBuffer}, e.g. contents of a whole file, into the arrays of the
+ * caller, without any intermediate buffers.
+ */
+final class ByteBufferReader extends Reader {
+	private final ByteBuffer in;
+	private final CharsetDecoder decoder;
+	private boolean inputDone = false;
+	private boolean flushed = false;
+	/**
+	 * Second half of a surrogate pair, which didn't fit into the array of the caller, or {@code -1}.
+	 */
+	private int leftover = -1;
+
+	ByteBufferReader(ByteBuffer in, CharsetDecoder decoder) {
+		this.in = in;
+		this.decoder = decoder;
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		Objects.checkFromIndexSize(off, len, cbuf.length);
+		if (len == 0) {
+			return 0;
+		}
+		if (leftover >= 0) {
+			cbuf[off] = (char)leftover;
+			leftover = -1;
+			return 1;
+		}
+		if (len == 1) {
+			// decoder can't make progress, if the next character is a surrogate pair
+			char[] pair = new char[2];
+			int n = read(pair, 0, pair.length);
+			if (n < 0) {
+				return n;
+			}
+			cbuf[off] = pair[0];
+			if (n == 2) {
+				leftover = pair[1];
+			}
+			return 1;
+		}
+		CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+		if (!inputDone) {
+			CoderResult result = decoder.decode(in, out, true);
+			if (result.isError()) {
+				result.throwException();
+			}
+			inputDone = result.isUnderflow();
+		}
+		if (inputDone && !flushed) {
+			flushed = decoder.flush(out).isUnderflow();
+		}
+		int n = out.position() - off;
+		if (n == 0 && flushed) {
+			return -1;
+		}
+		return n;
+	}
+
+	@Override
+	public void close() {
+		// nothing to close, the buffer is owned by the caller
+	}
+}
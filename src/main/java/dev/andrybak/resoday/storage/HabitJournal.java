@@ -0,0 +1,385 @@
+package dev.andrybak.resoday.storage;
+
+import dev.andrybak.resoday.YearHistoryListener;
+import dev.andrybak.resoday.gui.settings.DataDirSupplier;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of days turned on and off, saved as part of the data, near the {@code .habit} files.
+ * <p>
+ * Every change is appended as soon as it happens, so it isn't lost, if the JVM dies before the {@code .habit} file of
+ * the habit is saved. The journal is split into segments. {@link #rotate()} seals the current segment, and after all
+ * habits have been saved, the sealed segments can be {@linkplain Checkpoint#delete() deleted}. Changes of habits,
+ * which couldn't be saved, can be carried over into a {@linkplain Checkpoint#compact(Set) compacted} segment instead.
+ * Segments, which are left over from the previous run, are {@linkplain #replay(Replayer) replayed} at startup.
+ * <p>
+ * A segment consists of records, each of which starts with a type byte:
+ * <ul>
+ *     <li>{@value #HABIT_RECORD}: declares a habit ID, which is used by the following records of the segment. Followed
+ *     by unsigned 16-bit length and UTF-8 bytes of the ID. Declared habits are numbered from zero.</li>
+ *     <li>{@value #TURN_ON_RECORD} and {@value #TURN_OFF_RECORD}: fixed-size record of a change. Followed by 32-bit
+ *     number of the habit and 32-bit {@linkplain LocalDate#toEpochDay() epoch day}.</li>
+ * </ul>
+ */
+public final class HabitJournal implements Closeable {
+	private static final Pattern SEGMENT_FILENAME_PATTERN = Pattern.compile("^resoday-journal-(\\d{1,18})\\.bin$");
+	private static final char HABIT_RECORD = 'H';
+	private static final char TURN_ON_RECORD = '+';
+	private static final char TURN_OFF_RECORD = '-';
+	private static final int TOGGLE_RECORD_SIZE = 1 + Integer.BYTES + Integer.BYTES;
+
+	private final DataDirSupplier dataDirSupplier;
+	/**
+	 * Segments, which were sealed, but haven't been deleted yet.
+	 */
+	private final List<Path> sealedSegments = new ArrayList<>();
+	/**
+	 * Numbers of habits in the current segment.
+	 */
+	private final Map<String, Integer> habitNumbers = new HashMap<>();
+	private long nextSegmentNumber;
+	private FileChannel currentChannel;
+	private Path currentSegment;
+
+	private HabitJournal(DataDirSupplier dataDirSupplier, List<Path> leftoverSegments, long nextSegmentNumber) {
+		this.dataDirSupplier = dataDirSupplier;
+		this.sealedSegments.addAll(leftoverSegments);
+		this.nextSegmentNumber = nextSegmentNumber;
+	}
+
+	/**
+	 * Doesn't create any files until the first change is {@linkplain #append appended}.
+	 */
+	public static HabitJournal open(DataDirSupplier dataDirSupplier) {
+		Path dataDir = dataDirSupplier.getDataDir();
+		List<Path> leftoverSegments = new ArrayList<>();
+		try (Stream<Path> paths = Files.list(dataDir)) {
+			paths.filter(p -> segmentNumber(p) >= 0)
+				.sorted(Comparator.comparingLong(HabitJournal::segmentNumber))
+				.forEach(leftoverSegments::add);
+		} catch (IOException e) {
+			System.err.println("Could not find journal files in '" + dataDir.toAbsolutePath() + "': " + e);
+		}
+		long nextSegmentNumber = leftoverSegments.isEmpty() ? 0 :
+			segmentNumber(leftoverSegments.get(leftoverSegments.size() - 1)) + 1;
+		return new HabitJournal(dataDirSupplier, leftoverSegments, nextSegmentNumber);
+	}
+
+	/**
+	 * @return number of the segment or {@code -1}, if path doesn't point to a journal segment
+	 */
+	private static long segmentNumber(Path p) {
+		Matcher m = SEGMENT_FILENAME_PATTERN.matcher(p.getFileName().toString());
+		if (!m.matches()) {
+			return -1;
+		}
+		return Long.parseLong(m.group(1));
+	}
+
+	/**
+	 * Apply all changes, which are left over from the previous run, in the order in which they happened.
+	 *
+	 * @return number of replayed changes
+	 */
+	public int replay(Replayer replayer) {
+		List<Path> segments;
+		synchronized (sealedSegments) {
+			segments = List.copyOf(sealedSegments);
+		}
+		int count = 0;
+		for (Path segment : segments) {
+			count += replaySegment(segment, replayer);
+		}
+		return count;
+	}
+
+	private static int replaySegment(Path segment, Replayer replayer) {
+		System.out.println("Replaying journal '" + segment.toAbsolutePath() + "'...");
+		int count;
+		try {
+			count = readSegment(segment, replayer);
+		} catch (IOException e) {
+			System.err.println("Could not read journal '" + segment.toAbsolutePath() + "': " + e);
+			return 0;
+		}
+		System.out.printf("\tReplayed %d changes.%n", count);
+		return count;
+	}
+
+	/**
+	 * Reads records of a segment up to the first damaged one.
+	 *
+	 * @return number of changes in the segment
+	 * @throws IOException if the segment cannot be read at all
+	 */
+	private static int readSegment(Path segment, Replayer replayer) throws IOException {
+		ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(segment));
+		List<String> ids = new ArrayList<>();
+		int count = 0;
+		try {
+			while (buf.hasRemaining()) {
+				char type = (char)buf.get();
+				switch (type) {
+				case HABIT_RECORD -> {
+					byte[] idBytes = new byte[Short.toUnsignedInt(buf.getShort())];
+					buf.get(idBytes);
+					ids.add(new String(idBytes, StandardCharsets.UTF_8));
+				}
+				case TURN_ON_RECORD, TURN_OFF_RECORD -> {
+					String id = ids.get(buf.getInt());
+					LocalDate d = LocalDate.ofEpochDay(buf.getInt());
+					replayer.apply(id, d, type == TURN_ON_RECORD);
+					count++;
+				}
+				default -> {
+					System.err.println("Unknown record in journal '" + segment.toAbsolutePath() + "'. " +
+						"Skipping the rest.");
+					return count;
+				}
+				}
+			}
+		} catch (BufferUnderflowException e) {
+			// the JVM died in the middle of writing of the last record
+			System.err.println("Journal '" + segment.toAbsolutePath() + "' ends with an incomplete record.");
+		} catch (IndexOutOfBoundsException | DateTimeException e) {
+			System.err.println("Corrupted record in journal '" + segment.toAbsolutePath() + "': " + e);
+		}
+		return count;
+	}
+
+	/**
+	 * Record a change of a day of a habit.
+	 */
+	public void append(String id, LocalDate d, boolean turnedOn) {
+		try {
+			ensureSegmentOpen();
+			write(currentChannel, habitNumbers, id, d, turnedOn);
+		} catch (IOException e) {
+			System.err.println("Could not write to journal '" + currentSegment + "': " + e);
+		}
+	}
+
+	/**
+	 * Write the record of a change, preceded by the declaration of the habit, if it's not in {@code habitNumbers} yet.
+	 *
+	 * @param habitNumbers numbers of habits declared in the segment so far
+	 */
+	private static void write(FileChannel channel, Map<String, Integer> habitNumbers, String id, LocalDate d,
+		boolean turnedOn) throws IOException
+	{
+		Integer habitNumber = habitNumbers.get(id);
+		byte[] idBytes = null;
+		if (habitNumber == null) {
+			idBytes = id.getBytes(StandardCharsets.UTF_8);
+			habitNumber = habitNumbers.size();
+		}
+		ByteBuffer buf = ByteBuffer.allocate(TOGGLE_RECORD_SIZE +
+			(idBytes == null ? 0 : 1 + Short.BYTES + idBytes.length));
+		if (idBytes != null) {
+			buf.put((byte)HABIT_RECORD);
+			buf.putShort((short)idBytes.length);
+			buf.put(idBytes);
+		}
+		buf.put((byte)(turnedOn ? TURN_ON_RECORD : TURN_OFF_RECORD));
+		buf.putInt(habitNumber);
+		buf.putInt(Math.toIntExact(d.toEpochDay()));
+		buf.flip();
+		while (buf.hasRemaining()) {
+			channel.write(buf);
+		}
+		habitNumbers.put(id, habitNumber);
+	}
+
+	private void ensureSegmentOpen() throws IOException {
+		if (currentChannel != null) {
+			return;
+		}
+		Path dataDir = dataDirSupplier.getDataDir();
+		Path segment;
+		do {
+			// data directory could have been changed to one with its own journal
+			segment = reserveSegment(dataDir);
+		} while (Files.exists(segment));
+		currentChannel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+			StandardOpenOption.APPEND);
+		currentSegment = segment;
+		habitNumbers.clear();
+	}
+
+	private Path reserveSegment(Path dataDir) {
+		Path segment = dataDir.resolve("resoday-journal-" + nextSegmentNumber + ".bin");
+		nextSegmentNumber++;
+		return segment;
+	}
+
+	/**
+	 * Seal the current segment. Changes appended after this call will go into a new segment.
+	 *
+	 * @return all segments sealed so far, which can be deleted once the habits, which were changed before this call,
+	 * have been saved. The number of the segment, which will be written to next, is reserved for the compacted
+	 * segment of the checkpoint, so that its changes are replayed before the newer ones.
+	 */
+	public Checkpoint rotate() {
+		if (currentChannel != null) {
+			closeCurrentSegment();
+			synchronized (sealedSegments) {
+				sealedSegments.add(currentSegment);
+			}
+			currentChannel = null;
+			currentSegment = null;
+		}
+		Path compactedSegment = reserveSegment(dataDirSupplier.getDataDir());
+		synchronized (sealedSegments) {
+			return new Checkpoint(List.copyOf(sealedSegments), compactedSegment);
+		}
+	}
+
+	private void closeCurrentSegment() {
+		try {
+			currentChannel.close();
+		} catch (IOException e) {
+			System.err.println("Could not close journal '" + currentSegment + "': " + e);
+		}
+	}
+
+	/**
+	 * Close the current segment without sealing it, so it is kept until it is replayed on the next start. The journal
+	 * must not be used afterwards.
+	 */
+	@Override
+	public void close() {
+		if (currentChannel != null) {
+			closeCurrentSegment();
+			currentChannel = null;
+			currentSegment = null;
+		}
+	}
+
+	/**
+	 * @return a listener, which records changes of the habit with the given ID
+	 */
+	public YearHistoryListener listenerFor(String id) {
+		return new YearHistoryListener() {
+			@Override
+			public void onTurnOn(LocalDate d) {
+				append(id, d, true);
+			}
+
+			@Override
+			public void onTurnOff(LocalDate d) {
+				append(id, d, false);
+			}
+		};
+	}
+
+	@FunctionalInterface
+	public interface Replayer {
+		void apply(String id, LocalDate d, boolean turnedOn);
+	}
+
+	/**
+	 * Sealed segments of a {@link HabitJournal}.
+	 */
+	public final class Checkpoint {
+		private final List<Path> segments;
+		private final Path compactedSegment;
+
+		private Checkpoint(List<Path> segments, Path compactedSegment) {
+			this.segments = segments;
+			this.compactedSegment = compactedSegment;
+		}
+
+		/**
+		 * Delete the segments of this checkpoint, but carry the changes of the given habits over into a new segment
+		 * first, so that they are still replayed on the next start. If that fails, all segments are kept. Can be
+		 * called from any thread.
+		 *
+		 * @param keptIds IDs of habits, which haven't been saved
+		 */
+		public void compact(Set<String> keptIds) {
+			if (keptIds.isEmpty()) {
+				delete();
+				return;
+			}
+			List<Path> existing = segments.stream().filter(Files::exists).toList();
+			if (existing.isEmpty()) {
+				return;
+			}
+			Map<String, Integer> compactedHabitNumbers = new HashMap<>();
+			try (FileChannel channel = FileChannel.open(compactedSegment, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+			{
+				for (Path segment : existing) {
+					List<IOException> failures = new ArrayList<>();
+					readSegment(segment, (id, d, turnedOn) -> {
+						if (!keptIds.contains(id) || !failures.isEmpty()) {
+							return;
+						}
+						try {
+							write(channel, compactedHabitNumbers, id, d, turnedOn);
+						} catch (IOException e) {
+							failures.add(e);
+						}
+					});
+					if (!failures.isEmpty()) {
+						throw failures.get(0);
+					}
+				}
+			} catch (IOException e) {
+				System.err.println("Could not compact journal into '" + compactedSegment.toAbsolutePath() + "': " +
+					e + ". Keeping the journal.");
+				return;
+			}
+			if (compactedHabitNumbers.isEmpty()) {
+				// there were no changes of the kept habits
+				try {
+					Files.delete(compactedSegment);
+				} catch (IOException e) {
+					System.err.println("Could not delete journal '" + compactedSegment.toAbsolutePath() + "': " + e);
+				}
+			} else {
+				synchronized (sealedSegments) {
+					// all older segments are in this checkpoint, the rest are newer
+					sealedSegments.add(0, compactedSegment);
+				}
+			}
+			delete();
+		}
+
+		/**
+		 * Delete the segments of this checkpoint. Can be called from any thread.
+		 */
+		public void delete() {
+			for (Path segment : segments) {
+				try {
+					Files.deleteIfExists(segment);
+					synchronized (sealedSegments) {
+						sealedSegments.remove(segment);
+					}
+				} catch (IOException e) {
+					System.err.println("Could not delete journal '" + segment.toAbsolutePath() + "': " + e);
+				}
+			}
+		}
+	}
+}
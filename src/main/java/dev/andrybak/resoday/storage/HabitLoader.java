@@ -0,0 +1,72 @@
+package dev.andrybak.resoday.storage;
+
+import dev.andrybak.resoday.YearHistory;
+import dev.andrybak.resoday.gui.settings.DataDirSupplier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/**
+ * Reads all {@code .habit} files of a data directory in parallel.
+ * <p>
+ * Files, which haven't changed since they were last saved, aren't read at startup. Instead, their metadata is taken
+ * from {@link HabitManifest}, and the dates are read only when they're needed.
+ */
+public final class HabitLoader {
+	private HabitLoader() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Files which can't be read are skipped, see {@link YearHistory#read}.
+	 *
+	 * @return histories by their IDs, in the order of paths of their files
+	 * @throws IOException if the data directory can't be listed
+	 */
+	public static Map<String/* id */, YearHistory> load(DataDirSupplier dataDirSupplier) throws IOException {
+		final List<Path> paths;
+		try (Stream<Path> s = Files.walk(dataDirSupplier.getDataDir())) {
+			paths = s
+				.filter(Files::isRegularFile)
+				.filter(Files::isReadable)
+				.filter(HabitFiles.IS_HABIT_FILE)
+				.sorted()
+				.toList();
+		}
+		if (paths.isEmpty()) {
+			return new LinkedHashMap<>();
+		}
+		Path dataDir = dataDirSupplier.getDataDir();
+		HabitManifest manifest = HabitManifest.read(dataDir);
+		int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), paths.size());
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<ForkJoinTask<Optional<YearHistory>>> tasks = paths.stream()
+				.map(statePath -> pool.submit(() -> manifest.lookUp(dataDir, statePath)
+					.map(entry -> YearHistory.fromManifest(dataDirSupplier, statePath, entry))
+					.or(() -> YearHistory.read(dataDirSupplier, statePath))))
+				.toList();
+			Map<String, YearHistory> result = new LinkedHashMap<>();
+			for (ForkJoinTask<Optional<YearHistory>> task : tasks) {
+				task.join().ifPresent(yearHistory -> {
+					YearHistory duplicate = result.putIfAbsent(yearHistory.getId(), yearHistory);
+					if (duplicate != null) {
+						throw new IllegalStateException("Duplicate habit ID='" + yearHistory.getId() + "' in " +
+							"habits '" + duplicate.getName() + "' and '" + yearHistory.getName() + "'");
+					}
+				});
+			}
+			return result;
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package dev.andrybak.resoday.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import dev.andrybak.resoday.HabitStatistics;
+import dev.andrybak.resoday.YearHistory;
+import dev.andrybak.resoday.settings.gui.HabitCalendarLayout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Metadata of habits, saved as part of the data, near the {@code .habit} files.
+ * <p>
+ * Allows finding out ID, name, visibility, layout, and {@linkplain HabitStatistics statistics} of a habit without
+ * reading of its whole {@code .habit} file.
+ * An entry of the manifest can be trusted only while size and modification time of the file are the same as the
+ * recorded ones, see {@link #lookUp(Path, Path)}.
+ */
+public final class HabitManifest {
+	private static final Path MANIFEST_FILE = Paths.get("resoday-manifest.json");
+	private static final Gson GSON = new GsonBuilder().create();
+	private static final int FORMAT_VERSION = 2;
+	private static final HabitManifest EMPTY = new HabitManifest(List.of());
+
+	private final int version;
+	private final List<Entry> habits;
+	private final transient Map<String/* file */, Entry> byFile;
+
+	HabitManifest(List<Entry> habits) {
+		this.version = FORMAT_VERSION;
+		this.habits = List.copyOf(habits);
+		this.byFile = new HashMap<>();
+		for (Entry entry : this.habits) {
+			byFile.put(entry.file(), entry);
+		}
+	}
+
+	/**
+	 * @return empty manifest, if there is no manifest in the directory or if it can't be read
+	 */
+	public static HabitManifest read(Path dataDir) {
+		Path p = dataDir.resolve(MANIFEST_FILE);
+		if (!Files.isRegularFile(p) || !Files.isReadable(p)) {
+			return EMPTY;
+		}
+		try (BufferedReader r = Files.newBufferedReader(p)) {
+			HabitManifest manifest = GSON.fromJson(r, HabitManifest.class);
+			if (manifest == null || manifest.version != FORMAT_VERSION || manifest.habits == null) {
+				System.err.println("Ignoring manifest '" + p.toAbsolutePath() + "' of unsupported format.");
+				return EMPTY;
+			}
+			return new HabitManifest(manifest.habits);
+		} catch (IOException | JsonParseException e) {
+			System.err.println("Could not read '" + p.toAbsolutePath() + "': " + e);
+			return EMPTY;
+		}
+	}
+
+	/**
+	 * Creates an entry for a habit, which has been saved to the given file.
+	 *
+	 * @throws IOException if attributes of the file can't be read
+	 */
+	static Entry describe(Path dataDir, Path statePath, String id, String name, YearHistory.Visibility visibility,
+		HabitCalendarLayout habitCalendarLayout, HabitStatistics.Summary statistics) throws IOException
+	{
+		BasicFileAttributes attributes = Files.readAttributes(statePath, BasicFileAttributes.class);
+		return new Entry(id, name, visibility, habitCalendarLayout, dataDir.relativize(statePath).toString(),
+			attributes.size(), attributes.lastModifiedTime().toMillis(), statistics.count(),
+			statistics.getFirst().map(LocalDate::toString).orElse(null),
+			statistics.getLast().map(LocalDate::toString).orElse(null));
+	}
+
+	/**
+	 * Can be called from any thread.
+	 *
+	 * @return entry for the given habit file, if it's still up-to-date
+	 */
+	public Optional<Entry> lookUp(Path dataDir, Path statePath) {
+		String file = dataDir.relativize(statePath).toString();
+		Entry entry = byFile.get(file);
+		if (entry == null) {
+			return Optional.empty();
+		}
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(statePath, BasicFileAttributes.class);
+			if (attributes.size() != entry.size() || attributes.lastModifiedTime().toMillis() != entry.lastModified()) {
+				return Optional.empty();
+			}
+		} catch (IOException e) {
+			return Optional.empty();
+		}
+		return Optional.of(entry);
+	}
+
+	List<Entry> getHabits() {
+		return habits;
+	}
+
+	void save(Path dataDir) {
+		Path p = dataDir.resolve(MANIFEST_FILE);
+		try {
+			Path tmpFile = Files.createTempFile(dataDir, "resoday-manifest", ".json.tmp");
+			try (Writer w = Files.newBufferedWriter(tmpFile)) {
+				GSON.toJson(this, w);
+			}
+			Files.move(tmpFile, p, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			System.err.println("Could not write '" + p.toAbsolutePath() + "': " + e);
+		}
+	}
+
+	/**
+	 * Metadata of one habit.
+	 *
+	 * @param file path to the {@code .habit} file, relative to the data directory
+	 * @param size size of the file in bytes, at the time of saving
+	 * @param lastModified modification time of the file in milliseconds since the epoch, at the time of saving
+	 * @param count number of dates, which are turned on
+	 * @param first the earliest date, which is turned on, in ISO format, or {@code null}
+	 * @param last the latest date, which is turned on, in ISO format, or {@code null}
+	 */
+	public record Entry(String id, String name, YearHistory.Visibility visibility,
+		HabitCalendarLayout habitCalendarLayout, String file, long size, long lastModified, int count, String first,
+		String last)
+	{
+		public HabitStatistics.Summary statistics() {
+			return new HabitStatistics.Summary(count,
+				first == null ? null : LocalDate.parse(first),
+				last == null ? null : LocalDate.parse(last));
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package dev.andrybak.resoday.storage;
+
+import dev.andrybak.resoday.HabitStatistics;
+import dev.andrybak.resoday.YearHistory;
+import dev.andrybak.resoday.gui.settings.DataDirSupplier;
+import dev.andrybak.resoday.settings.gui.HabitCalendarLayout;
+
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Saves {@code .habit} files on a background thread, so that slow disks don't freeze the GUI.
+ * <p>
+ * Snapshots of histories are taken on the event dispatch thread, and then written by a single background thread in
+ * the order of the calls, so that an older snapshot of a habit never overwrites a newer one. After all snapshots of
+ * one call have been written, the {@link HabitJournal} is compacted: the segments, which were sealed at the time of
+ * the call, are deleted, and the {@link HabitManifest} is updated. Changes of habits, whose files couldn't be read,
+ * are carried over in the journal.
+ */
+public final class PersistenceService {
+	private final HabitJournal journal;
+	private final DataDirSupplier dataDirSupplier;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "Resoday persistence");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * Manifest, which was saved last. Accessed only from the background thread.
+	 */
+	private HabitManifest savedManifest;
+
+	public PersistenceService(HabitJournal journal, DataDirSupplier dataDirSupplier) {
+		this.journal = journal;
+		this.dataDirSupplier = dataDirSupplier;
+	}
+
+	/**
+	 * Save histories, which have changes since last saving. Must be called from the event dispatch thread.
+	 */
+	public void save(List<YearHistory> histories) {
+		submit(histories, YearHistory::snapshot);
+	}
+
+	/**
+	 * Save all given histories, even those without changes. Must be called from the event dispatch thread.
+	 */
+	public void forceSave(List<YearHistory> histories) {
+		submit(histories, YearHistory::forceSnapshot);
+	}
+
+	private void submit(List<YearHistory> histories, Function<YearHistory, Optional<YearHistory.Snapshot>> snapshotter)
+	{
+		HabitJournal.Checkpoint checkpoint = journal.rotate();
+		Path dataDir = dataDirSupplier.getDataDir();
+		List<PendingWrite> writes = new ArrayList<>();
+		List<ManifestItem> unchanged = new ArrayList<>();
+		Set<String> unreadableIds = new HashSet<>();
+		for (YearHistory history : histories) {
+			Optional<YearHistory.Snapshot> maybeSnapshot = snapshotter.apply(history);
+			if (maybeSnapshot.isPresent()) {
+				// statistics are taken together with the snapshot, so that they match
+				writes.add(new PendingWrite(history, maybeSnapshot.get(), ManifestItem.of(history)));
+			} else if (history.isUnreadable()) {
+				// left out of the manifest, so that its file is read fully on the next start
+				unreadableIds.add(history.getId());
+			} else if (!history.hasChanges()) {
+				unchanged.add(ManifestItem.of(history));
+			}
+		}
+		executor.execute(() -> {
+			boolean allWritten = true;
+			List<ManifestItem> saved = new ArrayList<>(unchanged);
+			for (PendingWrite w : writes) {
+				if (w.snapshot().write()) {
+					SwingUtilities.invokeLater(() -> w.history().markSaved(w.snapshot()));
+					saved.add(w.manifestItem());
+				} else {
+					allWritten = false;
+				}
+			}
+			updateManifest(dataDir, saved);
+			if (allWritten) {
+				checkpoint.compact(unreadableIds);
+			} else {
+				// keep the journal, changes will be saved next time or replayed on the next start
+				System.err.println("Some habits could not be saved. Keeping the journal.");
+			}
+		});
+	}
+
+	/**
+	 * Save histories, which have changes, and wait for all pending writes to finish. Must be called from the event
+	 * dispatch thread, when the application is closing. No more saving is possible afterwards.
+	 *
+	 * @param timeout how long to wait, before giving up
+	 */
+	public void shutdown(List<YearHistory> histories, Duration timeout) {
+		save(histories);
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				// changes are still in the journal, they will be replayed on the next start
+				System.err.println("Saving takes longer than " + timeout + ". Giving up.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Only habits, whose files on disk are known to be up-to-date, go into the manifest. Habits, which failed to be
+	 * saved, will be read fully on the next start.
+	 */
+	private void updateManifest(Path dataDir, List<ManifestItem> saved) {
+		List<HabitManifest.Entry> entries = new ArrayList<>();
+		for (ManifestItem item : saved) {
+			try {
+				entries.add(HabitManifest.describe(dataDir, item.statePath(), item.id(), item.name(),
+					item.visibility(), item.habitCalendarLayout(), item.statistics()));
+			} catch (IOException e) {
+				System.err.println("Could not describe '" + item.statePath().toAbsolutePath() + "': " + e);
+			}
+		}
+		HabitManifest manifest = new HabitManifest(entries);
+		if (savedManifest != null && savedManifest.getHabits().equals(manifest.getHabits())) {
+			return;
+		}
+		manifest.save(dataDir);
+		savedManifest = manifest;
+	}
+
+	private record PendingWrite(YearHistory history, YearHistory.Snapshot snapshot, ManifestItem manifestItem) {
+	}
+
+	private record ManifestItem(Path statePath, String id, String name, YearHistory.Visibility visibility,
+		HabitCalendarLayout habitCalendarLayout, HabitStatistics.Summary statistics)
+	{
+		static ManifestItem of(YearHistory history) {
+			return new ManifestItem(history.getStatePath(), history.getId(), history.getName(),
+				history.getVisibility(), history.getHabitCalendarLayout(), history.getStatistics().getSummary());
+		}
+	}
+}
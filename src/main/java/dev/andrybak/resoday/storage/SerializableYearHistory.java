@@ -2,21 +2,26 @@ package dev.andrybak.resoday.storage;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonIOException;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import dev.andrybak.resoday.YearHistory;
 import dev.andrybak.resoday.settings.gui.HabitCalendarLayout;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Serializable;
-import java.lang.reflect.Type;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -29,11 +34,15 @@ import java.util.Objects;
 
 public final class SerializableYearHistory implements Serializable {
 	public static final Gson GSON = new GsonBuilder()
-		.registerTypeAdapter(VersionedYearHistory.class, YearHistoryJsonAdapter.INSTANCE)
-		.registerTypeAdapter(LocalDate.class, LocalDateJsonAdapter.INSTANCE)
+		.registerTypeAdapterFactory(YearHistoryTypeAdapterFactory.INSTANCE)
+		.registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter().nullSafe())
 		.create();
 
-	public static final int CURRENT_FORMAT_VERSION = 2;
+	public static final int CURRENT_FORMAT_VERSION = BinaryYearHistoryFormat.VERSION;
+	/**
+	 * The latest JSON-based version. Still used by {@link #toJson()}.
+	 */
+	static final int JSON_FORMAT_VERSION = 2;
 	private static final DateTimeFormatter CALENDAR_DAY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
 	private final List<LocalDate> dates;
@@ -58,6 +67,29 @@ public final class SerializableYearHistory implements Serializable {
 		return convert(versionedHistory, name, fallbackId);
 	}
 
+	/**
+	 * Read a habit file of the current binary version or of any JSON-based version.
+	 *
+	 * @throws IOException if the file can't be read or if it is a corrupted binary file
+	 * @throws JsonParseException if the file is neither binary nor JSON
+	 */
+	public static SerializableYearHistory read(Path path, String name) throws IOException, JsonParseException {
+		ByteBuffer contents = readContents(path);
+		if (BinaryYearHistoryFormat.hasMagic(contents)) {
+			return BinaryYearHistoryFormat.read(contents, name, HabitFiles.v0v1PathToId(path));
+		}
+		return fromJson(new ByteBufferReader(contents, StandardCharsets.UTF_8.newDecoder()), name, path);
+	}
+
+	/**
+	 * Files are read into the heap with one read call, and are parsed straight from the buffer. They are never
+	 * memory-mapped: habit files are replaced on each saving, and on some platforms a mapped file can't be replaced
+	 * until the mapping is garbage-collected.
+	 */
+	private static ByteBuffer readContents(Path path) throws IOException {
+		return ByteBuffer.wrap(Files.readAllBytes(path));
+	}
+
 	/**
 	 * Read a habit file of any JSON-based version (currently: version 1 and version 2).
 	 */
@@ -130,6 +162,13 @@ public final class SerializableYearHistory implements Serializable {
 		GSON.toJson(new VersionedYearHistory(this), w);
 	}
 
+	/**
+	 * Write this history in the {@linkplain #CURRENT_FORMAT_VERSION current} binary format.
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		BinaryYearHistoryFormat.write(this, out);
+	}
+
 	@Override
 	public String toString() {
 		return "SerializableYearHistory{" +
@@ -141,62 +180,120 @@ public final class SerializableYearHistory implements Serializable {
 			'}';
 	}
 
-	private enum YearHistoryJsonAdapter implements JsonDeserializer<VersionedYearHistory> {
+	/**
+	 * Reads the {@value #VERSION_KEY} field and then streams the {@value #DATA_KEY} object straight into the class of
+	 * the corresponding version, without building a tree of {@link JsonElement}s.
+	 */
+	private enum YearHistoryTypeAdapterFactory implements TypeAdapterFactory {
 		INSTANCE;
 
 		static final String VERSION_KEY = "version";
 		static final String DATA_KEY = "data";
 
 		@Override
-		public VersionedYearHistory deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-			throws JsonParseException
+		public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+			if (type.getRawType() != VersionedYearHistory.class) {
+				return null;
+			}
+			@SuppressWarnings("unchecked") // checked above
+			TypeAdapter<T> adapter = (TypeAdapter<T>)new VersionedYearHistoryTypeAdapter(
+				gson.getAdapter(SerializableYearHistoryV1.class),
+				gson.getAdapter(SerializableYearHistory.class)
+			).nullSafe();
+			return adapter;
+		}
+	}
+
+	private static final class VersionedYearHistoryTypeAdapter extends TypeAdapter<VersionedYearHistory> {
+		private final TypeAdapter<SerializableYearHistoryV1> v1Adapter;
+		private final TypeAdapter<SerializableYearHistory> currentAdapter;
+
+		VersionedYearHistoryTypeAdapter(TypeAdapter<SerializableYearHistoryV1> v1Adapter,
+			TypeAdapter<SerializableYearHistory> currentAdapter)
 		{
-			int version = json.getAsJsonObject().get(VERSION_KEY).getAsInt();
-			JsonElement data = json.getAsJsonObject().get(DATA_KEY);
+			this.v1Adapter = v1Adapter;
+			this.currentAdapter = currentAdapter;
+		}
+
+		@Override
+		public void write(JsonWriter out, VersionedYearHistory value) throws IOException {
+			out.beginObject();
+			out.name(YearHistoryTypeAdapterFactory.VERSION_KEY).value(value.version);
+			out.name(YearHistoryTypeAdapterFactory.DATA_KEY);
+			currentAdapter.write(out, value.data);
+			out.endObject();
+		}
+
+		@Override
+		public VersionedYearHistory read(JsonReader in) throws IOException {
+			Integer version = null;
+			SerializableYearHistory data = null;
+			/*
+			 * Resoday always writes the version before the data. Handle the opposite order anyway, by falling back
+			 * to a tree, which is read again after the version becomes known.
+			 */
+			JsonElement bufferedData = null;
+			in.beginObject();
+			while (in.hasNext()) {
+				switch (in.nextName()) {
+				case YearHistoryTypeAdapterFactory.VERSION_KEY -> version = in.nextInt();
+				case YearHistoryTypeAdapterFactory.DATA_KEY -> {
+					if (version == null) {
+						bufferedData = JsonParser.parseReader(in);
+					} else {
+						data = readData(version, in);
+					}
+				}
+				default -> in.skipValue();
+				}
+			}
+			in.endObject();
+			if (version == null) {
+				throw new JsonParseException("Missing SerializableYearHistory format version");
+			}
+			if (bufferedData != null) {
+				data = readData(version, new JsonReader(new StringReader(bufferedData.toString())));
+			}
+			return new VersionedYearHistory(data);
+		}
+
+		private SerializableYearHistory readData(int version, JsonReader in) throws IOException {
 			switch (version) {
 			case SerializableYearHistoryV1.VERSION -> {
-				SerializableYearHistoryV1 v1History = context.deserialize(data, SerializableYearHistoryV1.class);
-				return new VersionedYearHistory(v1History.toCurrentVersion());
+				SerializableYearHistoryV1 v1History = v1Adapter.read(in);
+				return v1History == null ? null : v1History.toCurrentVersion();
 			}
-			case CURRENT_FORMAT_VERSION -> {
-				SerializableYearHistory history = context.deserialize(data, SerializableYearHistory.class);
-				return new VersionedYearHistory(history);
+			case JSON_FORMAT_VERSION -> {
+				return currentAdapter.read(in);
 			}
 			default -> throw new JsonParseException("Unknown SerializableYearHistory format version: " + version);
 			}
 		}
 	}
 
-	private enum LocalDateJsonAdapter implements JsonSerializer<LocalDate>, JsonDeserializer<LocalDate> {
-		INSTANCE;
+	private static final class LocalDateTypeAdapter extends TypeAdapter<LocalDate> {
+		@Override
+		public void write(JsonWriter out, LocalDate value) throws IOException {
+			out.value(CALENDAR_DAY_FORMATTER.format(value));
+		}
 
 		@Override
-		public LocalDate deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-			throws JsonParseException
-		{
+		public LocalDate read(JsonReader in) throws IOException {
 			try {
-				return LocalDate.parse(json.getAsString(), CALENDAR_DAY_FORMATTER);
+				return LocalDate.parse(in.nextString(), CALENDAR_DAY_FORMATTER);
 			} catch (DateTimeParseException e) {
 				throw new JsonParseException(e);
 			}
 		}
-
-		@Override
-		public JsonElement serialize(LocalDate src, Type typeOfSrc, JsonSerializationContext context) {
-			return new JsonPrimitive(CALENDAR_DAY_FORMATTER.format(src));
-		}
 	}
 
 	private static final class VersionedYearHistory {
-		@SuppressWarnings("unused") // version needs to be serialized
-		@SerializedName(YearHistoryJsonAdapter.VERSION_KEY)
 		final int version;
-		@SerializedName(YearHistoryJsonAdapter.DATA_KEY)
 		final SerializableYearHistory data;
 
 		VersionedYearHistory(SerializableYearHistory data) {
 			this.data = data;
-			this.version = CURRENT_FORMAT_VERSION;
+			this.version = JSON_FORMAT_VERSION;
 		}
 	}
 }
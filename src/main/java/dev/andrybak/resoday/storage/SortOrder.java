@@ -7,7 +7,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -58,8 +57,12 @@ public class SortOrder {
 		}
 	}
 
+	/**
+	 * @param elements elements to sort by their IDs. Elements, which are missing from this order, go last, in the
+	 * iteration order of {@code elements}.
+	 */
 	public <T> Stream<T> order(Map<String, T> elements) {
-		Set<String> inputIds = new HashSet<>(elements.keySet());
+		Set<String> inputIds = new LinkedHashSet<>(elements.keySet());
 		Set<String> actualOrder = new LinkedHashSet<>(); // LinkedHashSet because we need preserved order
 		for (String id : order) {
 			if (inputIds.contains(id)) {
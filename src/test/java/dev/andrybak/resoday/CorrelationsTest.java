@@ -0,0 +1,57 @@
+package dev.andrybak.resoday;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CorrelationsTest {
+	@Test
+	void testThatCoOccurrencesMatchNaiveCount() {
+		Random random = new Random(42);
+		LocalDate start = LocalDate.of(2019, 6, 1);
+		List<DateSet> habits = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			DateSet dates = new DateSet();
+			for (int day = 0; day < 1500; day++) {
+				if (random.nextInt(3) == 0) {
+					dates.add(start.plusDays(day));
+				}
+			}
+			habits.add(dates);
+		}
+		LocalDate from = LocalDate.of(2020, 2, 29);
+		LocalDate to = LocalDate.of(2022, 3, 1);
+		Correlations correlations = Correlations.compute(habits, from, to);
+		for (int i = 0; i < habits.size(); i++) {
+			for (int j = 0; j < habits.size(); j++) {
+				int expected = 0;
+				for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+					if (habits.get(i).contains(d) && habits.get(j).contains(d)) {
+						expected++;
+					}
+				}
+				assertEquals(expected, correlations.getCoOccurrences(i, j));
+			}
+		}
+	}
+
+	@Test
+	void testThatIdenticalHabitsCorrelateFully() {
+		DateSet dates = new DateSet(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3)));
+		DateSet opposite = new DateSet(List.of(LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 4)));
+		Correlations correlations = Correlations.compute(List.of(dates, new DateSet(dates), opposite),
+			LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 4));
+		assertEquals(1.0, correlations.getPhi(0, 1), 1e-9);
+		assertEquals(1.0, correlations.getJaccard(0, 1), 1e-9);
+		assertEquals(-1.0, correlations.getPhi(0, 2), 1e-9);
+		assertEquals(0.0, correlations.getJaccard(0, 2), 1e-9);
+		assertTrue(Double.isNaN(Correlations.compute(List.of(new DateSet()), LocalDate.of(2024, 1, 1),
+			LocalDate.of(2024, 1, 4)).getJaccard(0, 0)));
+	}
+}
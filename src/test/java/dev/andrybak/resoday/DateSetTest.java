@@ -0,0 +1,95 @@
+package dev.andrybak.resoday;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DateSetTest {
+	@Test
+	void testThatAddedDatesAreContained() {
+		DateSet set = new DateSet();
+		assertTrue(set.add(LocalDate.of(2020, 12, 31)));
+		assertTrue(set.add(LocalDate.of(2020, 1, 1)));
+		assertFalse(set.add(LocalDate.of(2020, 1, 1)), "Adding the same date twice should not change the set");
+		assertTrue(set.contains(LocalDate.of(2020, 12, 31)));
+		assertTrue(set.contains(LocalDate.of(2020, 1, 1)));
+		assertFalse(set.contains(LocalDate.of(2020, 1, 2)));
+		assertFalse(set.contains(LocalDate.of(2021, 1, 1)));
+		assertEquals(2, set.size());
+	}
+
+	@Test
+	void testThatYearsAreSortedAndDistinct() {
+		DateSet set = new DateSet(List.of(
+			LocalDate.of(2021, 5, 1),
+			LocalDate.of(1961, 1, 1),
+			LocalDate.of(2021, 6, 1),
+			LocalDate.of(2121, 12, 31),
+			LocalDate.of(1999, 2, 28)
+		));
+		assertEquals(List.of(1961, 1999, 2021, 2121), set.years().boxed().toList());
+	}
+
+	@Test
+	void testThatYearWithoutDatesIsRemoved() {
+		DateSet set = new DateSet(List.of(
+			LocalDate.of(2019, 3, 3),
+			LocalDate.of(2020, 2, 29)
+		));
+		assertTrue(set.remove(LocalDate.of(2020, 2, 29)));
+		assertFalse(set.remove(LocalDate.of(2020, 2, 29)), "Removing absent date should not change the set");
+		assertEquals(List.of(2019), set.years().boxed().toList());
+		assertEquals(1, set.size());
+	}
+
+	@Test
+	void testThatToListIsChronological() {
+		List<LocalDate> expected = List.of(
+			LocalDate.of(1961, 1, 1),
+			LocalDate.of(2020, 2, 29),
+			LocalDate.of(2020, 3, 1),
+			LocalDate.of(2020, 12, 31),
+			LocalDate.of(2021, 1, 1)
+		);
+		DateSet set = new DateSet(List.of(
+			expected.get(3),
+			expected.get(1),
+			expected.get(4),
+			expected.get(0),
+			expected.get(2)
+		));
+		assertEquals(expected, set.toList());
+	}
+
+	@Test
+	void testThatDaysOfYearAreCopied() {
+		DateSet set = new DateSet(List.of(
+			LocalDate.of(2020, 1, 1),
+			LocalDate.of(2020, 12, 31),
+			LocalDate.of(2021, 1, 1)
+		));
+		BitSet days = set.daysOfYear(2020);
+		assertTrue(days.get(0));
+		assertTrue(days.get(365));
+		assertEquals(2, days.cardinality());
+		days.clear();
+		assertTrue(set.contains(LocalDate.of(2020, 1, 1)), "Changing the copy should not change the set");
+		assertTrue(set.daysOfYear(1999).isEmpty());
+	}
+
+	@Test
+	void testThatCopyIsIndependent() {
+		DateSet original = new DateSet(List.of(LocalDate.of(2020, 1, 1), LocalDate.of(2021, 1, 1)));
+		DateSet copy = new DateSet(original);
+		copy.add(LocalDate.of(2020, 1, 2));
+		copy.remove(LocalDate.of(2021, 1, 1));
+		assertEquals(List.of(LocalDate.of(2020, 1, 1), LocalDate.of(2021, 1, 1)), original.toList());
+		assertEquals(List.of(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 2)), copy.toList());
+	}
+}
@@ -0,0 +1,47 @@
+package dev.andrybak.resoday;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EpochDayIndexTest {
+	private static EpochDayIndex indexOf(int... days) {
+		EpochDayIndex index = new EpochDayIndex();
+		for (int day : days) {
+			index.add(day);
+		}
+		return index;
+	}
+
+	@Test
+	void testThatIndexStaysSorted() {
+		EpochDayIndex index = indexOf(50, -3, 20, 10, 40, 30);
+		assertFalse(index.add(20), "Adding the same day twice should not change the index");
+		assertTrue(index.remove(40));
+		assertFalse(index.remove(40), "Removing absent day should not change the index");
+		List<Integer> actual = new ArrayList<>();
+		index.forEachBetween(Integer.MIN_VALUE, Integer.MAX_VALUE, actual::add);
+		assertEquals(List.of(-3, 10, 20, 30, 50), actual);
+		assertEquals(-3, index.first());
+		assertEquals(50, index.last());
+	}
+
+	@Test
+	void testThatRangeBoundsAreInclusive() {
+		EpochDayIndex index = indexOf(10, 20, 30, 40);
+		assertEquals(3, index.countBetween(10, 30));
+		assertEquals(2, index.countBetween(11, 30));
+		assertEquals(1, index.countBetween(20, 20));
+		assertEquals(0, index.countBetween(21, 29));
+		assertEquals(0, index.countBetween(30, 10));
+		assertEquals(4, index.countBetween(Integer.MIN_VALUE, Integer.MAX_VALUE));
+		List<Integer> actual = new ArrayList<>();
+		index.forEachBetween(15, 40, actual::add);
+		assertEquals(List.of(20, 30, 40), actual);
+	}
+}
@@ -0,0 +1,58 @@
+package dev.andrybak.resoday;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreaksTest {
+	private static final LocalDate START = LocalDate.of(2024, 2, 27);
+
+	private static Streaks streaksOf(int... days) {
+		EpochDayIndex index = new EpochDayIndex();
+		for (int day : days) {
+			index.add(Math.toIntExact(START.plusDays(day).toEpochDay()));
+		}
+		return new Streaks(index);
+	}
+
+	private static Streaks.Run run(int first, int last) {
+		return new Streaks.Run(START.plusDays(first), START.plusDays(last));
+	}
+
+	@Test
+	void testThatRunsAreBuiltFromIndex() {
+		Streaks streaks = streaksOf(0, 1, 2, 5, 7, 8);
+		assertEquals(List.of(run(0, 2), run(5, 5), run(7, 8)), streaks.getRuns());
+		assertEquals(3, streaks.getLongest());
+	}
+
+	@Test
+	void testThatRunsAreMergedAndSplit() {
+		Streaks streaks = streaksOf(0, 1, 3, 4);
+		streaks.onTurnOn(START.plusDays(2));
+		assertEquals(List.of(run(0, 4)), streaks.getRuns());
+		assertEquals(5, streaks.getLongest());
+		streaks.onTurnOff(START.plusDays(1));
+		assertEquals(List.of(run(0, 0), run(2, 4)), streaks.getRuns());
+		assertEquals(3, streaks.getLongest());
+		streaks.onTurnOff(START.plusDays(4));
+		streaks.onTurnOff(START.plusDays(0));
+		assertEquals(List.of(run(2, 3)), streaks.getRuns());
+		assertEquals(2, streaks.getLongest());
+		streaks.onTurnOff(START.plusDays(2));
+		streaks.onTurnOff(START.plusDays(3));
+		assertEquals(List.of(), streaks.getRuns());
+		assertEquals(0, streaks.getLongest());
+	}
+
+	@Test
+	void testThatCurrentStreakMayEndYesterday() {
+		Streaks streaks = streaksOf(0, 1, 2);
+		assertEquals(3, streaks.getCurrent(START.plusDays(2)));
+		assertEquals(3, streaks.getCurrent(START.plusDays(3)));
+		assertEquals(0, streaks.getCurrent(START.plusDays(4)));
+	}
+}
@@ -0,0 +1,135 @@
+package dev.andrybak.resoday;
+
+import dev.andrybak.resoday.settings.gui.HabitCalendarLayout;
+import dev.andrybak.resoday.storage.HabitManifest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YearHistoryTest {
+	@Test
+	void testThatBulkUpdateNotifiesOnceWithActualChanges() {
+		LocalDate first = LocalDate.of(2024, 1, 1);
+		LocalDate second = LocalDate.of(2024, 1, 2);
+		LocalDate third = LocalDate.of(2024, 1, 3);
+		YearHistory history = new YearHistory(() -> Path.of("."), Path.of("test.habit"), "Test", "test-id");
+		history.turnOn(first);
+		List<Set<LocalDate>> turnedOnBatches = new ArrayList<>();
+		List<Set<LocalDate>> turnedOffBatches = new ArrayList<>();
+		history.addListener(new YearHistoryListener() {
+			@Override
+			public void onTurnOn(LocalDate d) {
+				turnedOnBatches.add(Set.of(d));
+			}
+
+			@Override
+			public void onTurnOff(LocalDate d) {
+				turnedOffBatches.add(Set.of(d));
+			}
+
+			@Override
+			public void onChanged(Set<LocalDate> turnedOn, Set<LocalDate> turnedOff) {
+				turnedOnBatches.add(Set.copyOf(turnedOn));
+				turnedOffBatches.add(Set.copyOf(turnedOff));
+			}
+		});
+		history.update(List.of(first, second), List.of(third, first));
+		assertEquals(List.of(Set.of(second)), turnedOnBatches);
+		assertEquals(List.of(Set.of(first)), turnedOffBatches);
+		assertFalse(history.isTurnedOn(first));
+		assertTrue(history.isTurnedOn(second));
+		assertFalse(history.isTurnedOn(third));
+		assertEquals(1, history.size());
+	}
+
+	@Test
+	void testThatStatisticsFollowChanges() {
+		LocalDate first = LocalDate.of(2020, 3, 1);
+		LocalDate second = LocalDate.of(2021, 7, 15);
+		LocalDate third = LocalDate.of(2022, 12, 31);
+		YearHistory history = new YearHistory(() -> Path.of("."), Path.of("test.habit"), "Test", "test-id");
+		assertEquals(HabitStatistics.Summary.EMPTY, history.getStatistics().getSummary());
+		history.turnOn(second);
+		history.turnOn(first);
+		history.turnOn(third);
+		history.turnOn(third);
+		assertEquals(new HabitStatistics.Summary(3, first, third), history.getStatistics().getSummary());
+		history.turnOff(first);
+		history.turnOff(first);
+		assertEquals(new HabitStatistics.Summary(2, second, third), history.getStatistics().getSummary());
+		history.update(List.of(first), List.of(second, third));
+		assertEquals(new HabitStatistics.Summary(1, first, first), history.getStatistics().getSummary());
+	}
+
+	@Test
+	void testThatStatisticsFromManifestDontNeedReading() {
+		Path dataDir = Path.of("nonexistent-data-dir");
+		Path statePath = dataDir.resolve("nonexistent.habit");
+		HabitManifest.Entry entry = new HabitManifest.Entry("test-id", "Test", YearHistory.Visibility.VISIBLE,
+			HabitCalendarLayout.DEFAULT, "nonexistent.habit", 42, 0, 3, "2020-01-01", "2020-01-03");
+		YearHistory history = YearHistory.fromManifest(() -> dataDir, statePath, entry);
+		assertEquals(entry.statistics(), history.getStatistics().getSummary());
+	}
+
+	@Test
+	void testThatUnreadableFileFromManifestIsNotOverwritten(@TempDir Path dataDir) throws IOException {
+		Path statePath = dataDir.resolve("broken.habit");
+		Files.writeString(statePath, "{ this is not a habit");
+		HabitManifest.Entry entry = new HabitManifest.Entry("test-id", "Test", YearHistory.Visibility.VISIBLE,
+			HabitCalendarLayout.DEFAULT, "broken.habit", Files.size(statePath), 0, 1, "2020-01-01", "2020-01-01");
+		YearHistory history = YearHistory.fromManifest(() -> dataDir, statePath, entry);
+		history.turnOn(LocalDate.of(2024, 1, 1));
+		assertTrue(history.isUnreadable());
+		assertTrue(history.hasChanges());
+		assertEquals(Optional.empty(), history.snapshot());
+		assertEquals(Optional.empty(), history.forceSnapshot());
+		assertEquals("{ this is not a habit", Files.readString(statePath));
+	}
+
+	@Test
+	void testThatRollupsOfUnreadHistoryAreBuiltFromSnapshotOfDates() {
+		Path dataDir = Path.of("nonexistent-data-dir");
+		Path statePath = dataDir.resolve("nonexistent.habit");
+		HabitManifest.Entry entry = new HabitManifest.Entry("test-id", "Test", YearHistory.Visibility.VISIBLE,
+			HabitCalendarLayout.DEFAULT, "nonexistent.habit", 42, 0, 1, "2020-01-01", "2020-01-01");
+		YearHistory history = YearHistory.fromManifest(() -> dataDir, statePath, entry);
+		DateSet dates = new DateSet(List.of(LocalDate.of(2020, 1, 1)));
+		Rollups rollups = history.snapshotRollups(() -> dates).get();
+		assertEquals(Map.of(2020, 1), rollups.getCountsByYear());
+	}
+
+	@Test
+	void testThatRollupsFollowChanges() {
+		YearHistory history = new YearHistory(() -> Path.of("."), Path.of("test.habit"), "Test", "test-id");
+		history.turnOn(LocalDate.of(2023, 1, 2)); // Monday
+		history.turnOn(LocalDate.of(2023, 1, 9)); // Monday
+		history.turnOn(LocalDate.of(2024, 2, 29)); // Thursday
+		history.update(List.of(LocalDate.of(2024, 3, 1)), List.of(LocalDate.of(2023, 1, 9)));
+		Rollups rollups = history.snapshotRollups(history.snapshotDates()).get();
+		assertEquals(1, rollups.getCount(Month.JANUARY));
+		assertEquals(1, rollups.getCount(Month.FEBRUARY));
+		assertEquals(1, rollups.getCount(Month.MARCH));
+		assertEquals(1, rollups.getCount(DayOfWeek.MONDAY));
+		assertEquals(1, rollups.getCount(DayOfWeek.THURSDAY));
+		assertEquals(1, rollups.getCount(DayOfWeek.FRIDAY));
+		assertEquals(Map.of(2023, 1, 2024, 2), rollups.getCountsByYear());
+		history.turnOff(LocalDate.of(2023, 1, 2));
+		assertEquals(1, rollups.getCount(Month.JANUARY), "Snapshot should not change");
+		assertEquals(Map.of(2024, 2), history.snapshotRollups(history.snapshotDates()).get().getCountsByYear());
+	}
+}
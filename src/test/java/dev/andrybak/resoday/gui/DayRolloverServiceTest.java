@@ -0,0 +1,119 @@
+package dev.andrybak.resoday.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DayRolloverServiceTest {
+	private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+	private static final Duration MARGIN = Duration.ofMillis(100);
+
+	@Test
+	void testThatMidnightIsFoundAcrossTimeZoneTransitions() {
+		assertEquals(Duration.ofHours(12).plus(MARGIN), DayRolloverService.untilNextMidnight(
+			ZonedDateTime.of(2024, 3, 30, 12, 0, 0, 0, ZONE)));
+		// 2024-03-31 is only 23 hours long in Berlin
+		assertEquals(Duration.ofMinutes(22 * 60 + 30).plus(MARGIN), DayRolloverService.untilNextMidnight(
+			ZonedDateTime.of(2024, 3, 31, 0, 30, 0, 0, ZONE)));
+		// 2018-11-04 in São Paulo started at 01:00, there was no midnight
+		ZoneId saoPaulo = ZoneId.of("America/Sao_Paulo");
+		assertEquals(Duration.ofHours(12).plus(MARGIN), DayRolloverService.untilNextMidnight(
+			ZonedDateTime.of(2018, 11, 3, 12, 0, 0, 0, saoPaulo)));
+	}
+
+	@Test
+	void testThatListenerIsNotifiedOncePerNewDate() {
+		MutableClock clock = new MutableClock(LocalDateTime.of(2024, 1, 1, 23, 59, 0));
+		List<LocalDate> notifications = new ArrayList<>();
+		DayRolloverService service = new DayRolloverService(clock, clock::nanos, notifications::add);
+		service.start();
+		try {
+			assertEquals(Duration.ofMinutes(1).plus(MARGIN).toMillis(), service.getMidnightDelayMillis());
+			service.check(); // too early
+			assertEquals(List.of(), notifications);
+			clock.advance(Duration.ofMinutes(1).plus(MARGIN));
+			service.check();
+			service.check();
+			assertEquals(List.of(LocalDate.of(2024, 1, 2)), notifications);
+			assertEquals(Duration.ofDays(1).toMillis(), service.getMidnightDelayMillis());
+		} finally {
+			service.stop();
+		}
+	}
+
+	@Test
+	void testThatWatchdogNoticesClockJumps() {
+		MutableClock clock = new MutableClock(LocalDateTime.of(2024, 1, 1, 12, 0, 0));
+		List<LocalDate> notifications = new ArrayList<>();
+		DayRolloverService service = new DayRolloverService(clock, clock::nanos, notifications::add);
+		service.start();
+		try {
+			clock.advance(Duration.ofMinutes(1));
+			service.watch();
+			assertEquals(List.of(), notifications);
+			clock.jump(Duration.ofDays(3));
+			service.watch();
+			assertEquals(List.of(LocalDate.of(2024, 1, 4)), notifications);
+			assertEquals(Duration.ofHours(11).plusMinutes(59).plus(MARGIN).toMillis(),
+				service.getMidnightDelayMillis());
+		} finally {
+			service.stop();
+		}
+	}
+
+	/**
+	 * Wall clock, which can be moved by the test, along with a monotonic clock, which only moves forward.
+	 */
+	private static final class MutableClock extends Clock {
+		private Instant instant;
+		private long nanos = 0;
+
+		private MutableClock(LocalDateTime start) {
+			this.instant = start.atZone(ZONE).toInstant();
+		}
+
+		/**
+		 * Moves both clocks, as it happens with time passing.
+		 */
+		void advance(Duration d) {
+			instant = instant.plus(d);
+			nanos += d.toNanos();
+		}
+
+		/**
+		 * Moves only the wall clock, as it happens when the system clock is changed.
+		 */
+		void jump(Duration d) {
+			instant = instant.plus(d);
+		}
+
+		long nanos() {
+			return nanos;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZONE;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package dev.andrybak.resoday.gui.calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CalendarGeometryTest {
+	private static void assertThatEveryDayHasItsOwnCell(CalendarGeometry geometry) {
+		for (int day = 0; day < geometry.getDayCount(); day++) {
+			assertEquals(day, geometry.getDayAt(geometry.getDayColumn(day), geometry.getDayRow(day)));
+		}
+	}
+
+	@Test
+	void testThatColumnsGeometryHasDaysOfMonthInColumns() {
+		Year year = Year.of(2024);
+		CalendarGeometry geometry = CalendarGeometry.columns(year);
+		assertThatEveryDayHasItsOwnCell(geometry);
+		int feb29 = LocalDate.of(2024, 2, 29).getDayOfYear() - 1;
+		assertEquals(1, geometry.getDayColumn(feb29));
+		assertEquals(29, geometry.getDayRow(feb29));
+		assertEquals(-1, geometry.getDayAt(1, 30));
+	}
+
+	@Test
+	void testThatClassicGeometryHasWeeksInRows() {
+		Year year = Year.of(2023);
+		CalendarGeometry geometry = CalendarGeometry.classic(year, PaintedCalendarPanel.HORIZONTAL_NUMBER_OF_COLUMNS);
+		assertThatEveryDayHasItsOwnCell(geometry);
+		// 2023-01-01 is a Sunday, 2023-01-02 is a Monday of the second row of January
+		assertEquals(6, geometry.getDayColumn(0));
+		assertEquals(2, geometry.getDayRow(0));
+		assertEquals(0, geometry.getDayColumn(1));
+		assertEquals(3, geometry.getDayRow(1));
+		// 2023-02-01 is a Wednesday, February goes after the gap column
+		int feb1 = LocalDate.of(2023, 2, 1).getDayOfYear() - 1;
+		assertEquals(8 + 2, geometry.getDayColumn(feb1));
+		assertEquals(2, geometry.getDayRow(feb1));
+	}
+
+	@Test
+	void testThatGeometryIsSharedByYearsWithSameDays() {
+		// both years start on a Sunday
+		assertSame(CalendarGeometry.classic(Year.of(2017), 3), CalendarGeometry.classic(Year.of(2023), 3));
+		assertNotSame(CalendarGeometry.classic(Year.of(2023), 3), CalendarGeometry.classic(Year.of(2023), 4));
+		// 2012 is a leap year, which starts on a Sunday
+		assertNotSame(CalendarGeometry.columns(Year.of(2012)), CalendarGeometry.columns(Year.of(2023)));
+	}
+
+	@Test
+	void testThatLabelsAreShared() {
+		assertEquals("01", CalendarLabels.dayOfMonth(1));
+		assertEquals("31", CalendarLabels.dayOfMonth(31));
+		assertSame(CalendarLabels.of(Locale.ROOT), CalendarLabels.of(Locale.ROOT));
+		assertEquals("Jan", CalendarLabels.of(Locale.ENGLISH).monthAbbreviation(Month.JANUARY));
+		assertEquals("December", CalendarLabels.of(Locale.ENGLISH).monthName(Month.DECEMBER));
+	}
+}
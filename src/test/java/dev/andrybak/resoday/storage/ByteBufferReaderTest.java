@@ -0,0 +1,48 @@
+package dev.andrybak.resoday.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ByteBufferReaderTest {
+	private static Reader readerOf(byte[] bytes) {
+		return new ByteBufferReader(ByteBuffer.wrap(bytes), StandardCharsets.UTF_8.newDecoder());
+	}
+
+	@Test
+	void testThatMultiByteCharactersAreDecoded() throws IOException {
+		String s = "{\"name\": \"Привет 🏃 test\"}";
+		StringBuilder sb = new StringBuilder();
+		try (Reader r = readerOf(s.getBytes(StandardCharsets.UTF_8))) {
+			char[] buf = new char[3];
+			int n;
+			while ((n = r.read(buf)) >= 0) {
+				sb.append(buf, 0, n);
+			}
+		}
+		assertEquals(s, sb.toString());
+	}
+
+	@Test
+	void testThatSurrogatePairCanBeReadOneCharAtATime() throws IOException {
+		String s = "🏃";
+		try (Reader r = readerOf(s.getBytes(StandardCharsets.UTF_8))) {
+			assertEquals(s.charAt(0), r.read());
+			assertEquals(s.charAt(1), r.read());
+			assertEquals(-1, r.read());
+		}
+	}
+
+	@Test
+	void testThatMalformedInputIsRejected() {
+		Reader r = readerOf(new byte[]{'a', (byte)0xFF, 'b'});
+		assertThrows(CharacterCodingException.class, () -> r.read(new char[16]));
+	}
+}
@@ -0,0 +1,106 @@
+package dev.andrybak.resoday.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HabitJournalTest {
+	private record Change(String id, LocalDate d, boolean turnedOn) {
+	}
+
+	private static List<Change> replay(Path dataDir) {
+		List<Change> changes = new ArrayList<>();
+		try (HabitJournal journal = HabitJournal.open(() -> dataDir)) {
+			journal.replay((id, d, turnedOn) -> changes.add(new Change(id, d, turnedOn)));
+		}
+		return changes;
+	}
+
+	private static List<Path> listSegments(Path dataDir) throws IOException {
+		try (Stream<Path> paths = Files.list(dataDir)) {
+			return paths.toList();
+		}
+	}
+
+	@Test
+	void testThatChangesAreReplayedInOrder(@TempDir Path dataDir) throws IOException {
+		try (HabitJournal journal = HabitJournal.open(() -> dataDir)) {
+			journal.append("first", LocalDate.of(2021, 5, 1), true);
+			journal.append("second", LocalDate.of(1961, 1, 1), true);
+			journal.rotate();
+			journal.append("first", LocalDate.of(2021, 5, 1), false);
+		}
+
+		List<Change> expected = List.of(
+			new Change("first", LocalDate.of(2021, 5, 1), true),
+			new Change("second", LocalDate.of(1961, 1, 1), true),
+			new Change("first", LocalDate.of(2021, 5, 1), false)
+		);
+		assertEquals(expected, replay(dataDir));
+	}
+
+	@Test
+	void testThatCheckpointDeletesSealedSegments(@TempDir Path dataDir) throws IOException {
+		try (HabitJournal journal = HabitJournal.open(() -> dataDir)) {
+			journal.append("first", LocalDate.of(2021, 5, 1), true);
+			HabitJournal.Checkpoint checkpoint = journal.rotate();
+			journal.append("first", LocalDate.of(2021, 5, 2), true);
+			checkpoint.delete();
+		}
+
+		assertEquals(List.of(new Change("first", LocalDate.of(2021, 5, 2), true)), replay(dataDir));
+	}
+
+	@Test
+	void testThatCompactionKeepsOnlyChangesOfGivenHabits(@TempDir Path dataDir) throws IOException {
+		try (HabitJournal journal = HabitJournal.open(() -> dataDir)) {
+			journal.append("saved", LocalDate.of(2021, 5, 1), true);
+			journal.append("unreadable", LocalDate.of(2021, 5, 1), true);
+			journal.rotate();
+			journal.append("unreadable", LocalDate.of(2021, 5, 1), false);
+			journal.append("saved", LocalDate.of(2021, 5, 2), true);
+			HabitJournal.Checkpoint checkpoint = journal.rotate();
+			journal.append("unreadable", LocalDate.of(2021, 5, 1), true);
+			checkpoint.compact(Set.of("unreadable"));
+			assertEquals(2, listSegments(dataDir).size());
+			// the compacted segment is compacted again on the next save
+			journal.rotate().compact(Set.of("unreadable"));
+			assertEquals(1, listSegments(dataDir).size());
+		}
+
+		List<Change> expected = List.of(
+			new Change("unreadable", LocalDate.of(2021, 5, 1), true),
+			new Change("unreadable", LocalDate.of(2021, 5, 1), false),
+			new Change("unreadable", LocalDate.of(2021, 5, 1), true)
+		);
+		assertEquals(expected, replay(dataDir));
+	}
+
+	@Test
+	void testThatIncompleteRecordIsIgnored(@TempDir Path dataDir) throws IOException {
+		try (HabitJournal journal = HabitJournal.open(() -> dataDir)) {
+			journal.append("first", LocalDate.of(2021, 5, 1), true);
+			journal.append("first", LocalDate.of(2021, 5, 2), true);
+			journal.rotate();
+		}
+		List<Path> segments = listSegments(dataDir);
+		assertEquals(1, segments.size());
+		try (FileChannel channel = FileChannel.open(segments.get(0), StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 1);
+		}
+
+		assertEquals(List.of(new Change("first", LocalDate.of(2021, 5, 1), true)), replay(dataDir));
+	}
+}
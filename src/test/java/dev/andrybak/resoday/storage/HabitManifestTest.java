@@ -0,0 +1,48 @@
+package dev.andrybak.resoday.storage;
+
+import dev.andrybak.resoday.HabitStatistics;
+import dev.andrybak.resoday.YearHistory;
+import dev.andrybak.resoday.settings.gui.HabitCalendarLayout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HabitManifestTest {
+	@Test
+	void testThatSavedEntryCanBeLookedUp(@TempDir Path dataDir) throws IOException {
+		Path statePath = Files.writeString(dataDir.resolve("example.habit"), "example");
+		HabitManifest.Entry entry = HabitManifest.describe(dataDir, statePath, "some-id", "Example",
+			YearHistory.Visibility.HIDDEN, HabitCalendarLayout.COLUMNS,
+			new HabitStatistics.Summary(2, LocalDate.of(2021, 1, 1), LocalDate.of(2022, 12, 31)));
+		new HabitManifest(List.of(entry)).save(dataDir);
+
+		assertEquals(Optional.of(entry), HabitManifest.read(dataDir).lookUp(dataDir, statePath));
+		assertEquals(entry.statistics(), HabitManifest.read(dataDir).lookUp(dataDir, statePath)
+			.orElseThrow()
+			.statistics());
+	}
+
+	@Test
+	void testThatEntryOfModifiedFileIsIgnored(@TempDir Path dataDir) throws IOException {
+		Path statePath = Files.writeString(dataDir.resolve("example.habit"), "example");
+		HabitManifest.Entry entry = HabitManifest.describe(dataDir, statePath, "some-id", "Example",
+			YearHistory.Visibility.VISIBLE, HabitCalendarLayout.DEFAULT, HabitStatistics.Summary.EMPTY);
+		new HabitManifest(List.of(entry)).save(dataDir);
+		Files.writeString(statePath, "modified example");
+
+		assertEquals(Optional.empty(), HabitManifest.read(dataDir).lookUp(dataDir, statePath));
+	}
+
+	@Test
+	void testThatMissingManifestIsEmpty(@TempDir Path dataDir) throws IOException {
+		assertEquals(List.of(), HabitManifest.read(dataDir).getHabits());
+	}
+}
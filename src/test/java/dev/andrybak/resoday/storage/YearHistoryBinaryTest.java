@@ -0,0 +1,143 @@
+package dev.andrybak.resoday.storage;
+
+import dev.andrybak.resoday.YearHistory;
+import dev.andrybak.resoday.settings.gui.HabitCalendarLayout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class YearHistoryBinaryTest {
+	private static final String V3_COLUMNS_BASE_NAME = "v3-Columns-example";
+
+	private static byte[] toBytes(SerializableYearHistory history) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		history.writeTo(out);
+		return out.toByteArray();
+	}
+
+	private static SerializableYearHistory fromBytes(byte[] bytes) throws IOException {
+		return BinaryYearHistoryFormat.read(ByteBuffer.wrap(bytes), "fallbackNameShouldNotBeUsed",
+			"fallbackIdShouldNotBeUsed");
+	}
+
+	@Test
+	void testThatCurrentVersionCanBeDeserialized() throws IOException {
+		SerializableYearHistory history = new SerializableYearHistory(List.of(
+			LocalDate.of(1961, 1, 1),
+			LocalDate.of(2021, 5, 1),
+			LocalDate.of(2021, 5, 2),
+			LocalDate.of(2121, 12, 31)
+		), "Testing123 – 🚀", "UniqueId", YearHistory.Visibility.HIDDEN,
+			HabitCalendarLayout.CLASSIC_VERTICAL);
+
+		assertEquals(history, fromBytes(toBytes(history)));
+	}
+
+	@Test
+	void testThatEmptyHistoryCanBeDeserialized() throws IOException {
+		SerializableYearHistory history = new SerializableYearHistory(Collections.emptyList(), "Empty", "UniqueId",
+			YearHistory.Visibility.VISIBLE, HabitCalendarLayout.DEFAULT);
+
+		assertEquals(history, fromBytes(toBytes(history)));
+	}
+
+	@Test
+	void testThatDatesAreStoredSorted() throws IOException {
+		SerializableYearHistory unsorted = new SerializableYearHistory(List.of(
+			LocalDate.of(2021, 11, 20),
+			LocalDate.of(2020, 2, 29),
+			LocalDate.of(2020, 1, 20)
+		), "Unsorted", "UniqueId", YearHistory.Visibility.VISIBLE, HabitCalendarLayout.DEFAULT);
+		SerializableYearHistory sorted = new SerializableYearHistory(List.of(
+			LocalDate.of(2020, 1, 20),
+			LocalDate.of(2020, 2, 29),
+			LocalDate.of(2021, 11, 20)
+		), "Unsorted", "UniqueId", YearHistory.Visibility.VISIBLE, HabitCalendarLayout.DEFAULT);
+
+		assertEquals(sorted, fromBytes(toBytes(unsorted)));
+	}
+
+	@Test
+	void testThatTruncatedFileIsRejected() throws IOException {
+		SerializableYearHistory history = new SerializableYearHistory(List.of(
+			LocalDate.of(2021, 5, 1),
+			LocalDate.of(2022, 5, 1)
+		), "Truncated", "UniqueId", YearHistory.Visibility.VISIBLE, HabitCalendarLayout.DEFAULT);
+		byte[] bytes = toBytes(history);
+		byte[] truncated = new byte[bytes.length - 1];
+		System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+		assertThrows(IOException.class, () -> fromBytes(truncated));
+	}
+
+	@Test
+	void testThatCorruptedCountIsRejected() throws IOException {
+		SerializableYearHistory history = new SerializableYearHistory(Collections.emptyList(), "Corrupted",
+			"UniqueId", YearHistory.Visibility.VISIBLE, HabitCalendarLayout.DEFAULT);
+		byte[] bytes = toBytes(history);
+		// replace count 0, the last byte, with a varint of Integer.MAX_VALUE
+		byte[] corrupted = new byte[bytes.length + 4];
+		System.arraycopy(bytes, 0, corrupted, 0, bytes.length - 1);
+		byte[] maxCount = {(byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x07};
+		System.arraycopy(maxCount, 0, corrupted, bytes.length - 1, maxCount.length);
+
+		assertThrows(IOException.class, () -> fromBytes(corrupted));
+	}
+
+	@Test
+	void testThatV3FileCanBeRead() throws IOException, URISyntaxException {
+		String v3Filename = V3_COLUMNS_BASE_NAME + HabitFiles.HABIT_FILE_EXT;
+		SerializableYearHistory expected = new SerializableYearHistory(
+			List.of(
+				LocalDate.of(2023, 8, 12),
+				LocalDate.of(2023, 8, 13),
+				LocalDate.of(2024, 2, 29)
+			),
+			"Columns example",
+			"5a0f3c2e-8d1b-4f6a-9c7e-2b4d6f8a0c1e",
+			YearHistory.Visibility.VISIBLE,
+			HabitCalendarLayout.COLUMNS
+		);
+		URL resource = YearHistoryBinaryTest.class.getResource(v3Filename);
+		assert resource != null;
+		SerializableYearHistory actual = SerializableYearHistory.read(Path.of(resource.toURI()), "garbage");
+		assertEquals(expected, actual);
+		try (InputStream inputStream = YearHistoryBinaryTest.class.getResourceAsStream(v3Filename)) {
+			assert inputStream != null;
+			assertEquals(expected, fromBytes(inputStream.readAllBytes()));
+		}
+	}
+
+	@Test
+	void testThatLargeFilesCanBeReadAndReplaced(@TempDir Path dir) throws IOException {
+		// hundreds of kilobytes in both formats
+		List<LocalDate> dates = LocalDate.of(1900, 1, 1).datesUntil(LocalDate.of(2100, 1, 1)).toList();
+		SerializableYearHistory expected = new SerializableYearHistory(dates, "Large", "LargeId",
+			YearHistory.Visibility.VISIBLE, HabitCalendarLayout.DEFAULT);
+		Path binaryFile = dir.resolve("binary" + HabitFiles.HABIT_FILE_EXT);
+		Files.write(binaryFile, toBytes(expected));
+		Path jsonFile = dir.resolve("json" + HabitFiles.HABIT_FILE_EXT);
+		Files.writeString(jsonFile, expected.toJson());
+
+		assertEquals(expected, SerializableYearHistory.read(binaryFile, "garbage"));
+		assertEquals(expected, SerializableYearHistory.read(jsonFile, "garbage"));
+		// same as saving of a habit
+		Files.move(jsonFile, binaryFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		assertEquals(expected, SerializableYearHistory.read(binaryFile, "garbage"));
+	}
+}
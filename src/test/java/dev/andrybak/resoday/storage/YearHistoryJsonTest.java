@@ -1,5 +1,6 @@
 package dev.andrybak.resoday.storage;
 
+import com.google.gson.JsonParseException;
 import dev.andrybak.resoday.YearHistory;
 import dev.andrybak.resoday.settings.gui.HabitCalendarLayout;
 import org.junit.jupiter.api.Test;
@@ -14,6 +15,7 @@ import java.util.List;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class YearHistoryJsonTest {
 
@@ -104,4 +106,20 @@ class YearHistoryJsonTest {
 		);
 		testJsonDeserialization(v2Filename, "garbage", expected);
 	}
-}
\ No newline at end of file
+
+	@Test
+	void testThatDataBeforeVersionCanBeDeserialized() {
+		String fileContent = "{\"data\":{\"dates\":[\"2023-08-12\"],\"name\":\"Reordered\",\"id\":\"UniqueId\"}," +
+			"\"version\":2}";
+		SerializableYearHistory actual = SerializableYearHistory.fromJson(fileContent, "garbage", "garbage");
+		SerializableYearHistory expected = new SerializableYearHistory(List.of(LocalDate.of(2023, 8, 12)),
+			"Reordered", "UniqueId", null, null);
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	void testThatVersionZeroFileIsRejected() {
+		String fileContent = "2021-05-01\n2021-05-02\n";
+		assertThrows(JsonParseException.class, () -> SerializableYearHistory.fromJson(fileContent, "Foobar", "Foobar"));
+	}
+}